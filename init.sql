@@ -23,6 +23,13 @@ create table api_info (
   api_method varchar(255) not null,
   api_type varchar(255) not null, -- api type, e.g. 分页，列表，对象
   api_description varchar(255) not null,
+  cache_ttl_seconds int(11) default null comment '结果缓存时间（秒）',
+  streaming tinyint(1) default 0 comment '是否流式输出（列表API）',
+  page_mode varchar(32) default null comment '分页模式：OFFSET/KEYSET',
+  keyset_columns varchar(255) default null comment '游标分页排序列',
+  count_strategy varchar(32) default null comment '总数统计策略：ALWAYS/NONE/CACHED/PARALLEL',
+  count_cache_ttl_seconds int(11) default null comment '总数缓存时间（秒）',
+  timeout_millis int(11) default null comment '请求执行超时时间（毫秒）',
   create_by varchar(64) default null comment '创建人',
   create_time datetime default null comment '创建时间',
   update_by varchar(64) default null comment '更新人',
@@ -39,6 +46,9 @@ create table query_node (
   script longtext not null, -- 动态执行脚本
   data_source_id int(11) not null, -- 关联数据源
   node_description varchar(255) not null,
+  cache_ttl_seconds int(11) default null comment '节点结果缓存时间（秒）',
+  columnar tinyint(1) default 0 comment '是否列式保存结果',
+  query_timeout_seconds int(11) default null comment '语句超时时间（秒）',
   create_by varchar(64) default null comment '创建人',
   create_time datetime default null comment '创建时间',
   update_by varchar(64) default null comment '更新人',
@@ -66,6 +76,12 @@ create table data_source (
   password varchar(255) not null,
   is_default tinyint(1) not null default 0,
   description varchar(255) not null,
+  initial_size int(11) default null comment '初始连接数',
+  min_idle int(11) default null comment '最小空闲连接数',
+  max_active int(11) default null comment '最大连接数',
+  max_wait int(11) default null comment '获取连接最大等待时间（毫秒）',
+  ps_cache_size int(11) default null comment '每个连接缓存的预编译语句数',
+  slow_query_millis int(11) default null comment '慢查询阈值（毫秒）',
   create_by varchar(64) default null comment '创建人',
   create_time datetime default null comment '创建时间',
   update_by varchar(64) default null comment '更新人',
@@ -0,0 +1,82 @@
+package com.xqy.benchmark;
+
+import com.xqy.enums.ApiType;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.service.impl.handler.QueryDeadline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API处理器基准：列表、分页、对象API的完整执行路径（不含HTTP与序列化）
+ *
+ * @author xqy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiHandlerBenchmark {
+
+    @Param({"flat", "child", "wide", "deep"})
+    private String shape;
+
+    @Param({"100", "1000"})
+    private int orders;
+
+    @Param({"3"})
+    private int itemsPerOrder;
+
+    private BenchmarkFixture fixture;
+    private ExecutionPlan listPlan;
+    private ExecutionPlan pagePlan;
+    private ExecutionPlan mapPlan;
+    private Map<String, Object> params;
+    private Map<String, Object> objectParams;
+
+    @Setup
+    public void setup() throws SQLException {
+        fixture = new BenchmarkFixture(orders, itemsPerOrder, true, false);
+        listPlan = fixture.plan(ApiType.LIST, shape, false);
+        pagePlan = fixture.plan(ApiType.PAGE, shape, false);
+        mapPlan = fixture.plan(ApiType.MAP, "flat", false);
+        params = fixture.params();
+        objectParams = fixture.objectParams();
+        fixture.verifyBatching(listPlan, params);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object list() {
+        return fixture.getListApiHandler().handle(listPlan, fixture.getDataSourceExecutor(), params, QueryDeadline.NONE);
+    }
+
+    @Benchmark
+    public Object page() {
+        return fixture.getPageApiHandler().handle(pagePlan, fixture.getDataSourceExecutor(), params, QueryDeadline.NONE);
+    }
+
+    @Benchmark
+    public Object map() {
+        return fixture.getObjectApiHandler().handle(mapPlan, fixture.getDataSourceExecutor(), objectParams, QueryDeadline.NONE);
+    }
+}
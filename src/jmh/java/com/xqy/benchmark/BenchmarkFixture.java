@@ -0,0 +1,296 @@
+package com.xqy.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xqy.cache.NodeResultCache;
+import com.xqy.cache.PageCountCache;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.datasource.DataSourceLimiter;
+import com.xqy.datasource.SlowQueryLog;
+import com.xqy.datasource.dialect.SqlDialects;
+import com.xqy.dto.QueryNodeTreeDto;
+import com.xqy.entity.ApiInfo;
+import com.xqy.entity.DataSource;
+import com.xqy.enums.ApiType;
+import com.xqy.enums.QueryNodeType;
+import com.xqy.enums.RelationType;
+import com.xqy.metrics.QueryMetrics;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.plan.ExecutionPlanCompiler;
+import com.xqy.service.DataSourceService;
+import com.xqy.service.impl.DynamicDataSourceExecutorImpl;
+import com.xqy.service.impl.handler.ListApiHandler;
+import com.xqy.service.impl.handler.NodeExecutor;
+import com.xqy.service.impl.handler.NodeTaskExecutor;
+import com.xqy.service.impl.handler.ObjectApiHandler;
+import com.xqy.service.impl.handler.PageApiHandler;
+import com.xqy.service.impl.handler.QueryDeadline;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基准测试环境：内存 H2 数据库、数据源执行器、节点执行器与各API处理器
+ * <p>
+ * 数据：orders（orders 行）、order_item（每个订单 itemsPerOrder 行）、customer（订单数的 1/10）、sku（100 个）。
+ * 节点树形状：
+ * <ul>
+ *     <li>flat：只有订单根节点</li>
+ *     <li>child：订单 + 明细（多行子节点）</li>
+ *     <li>wide：订单 + 明细、客户（单行）、商品编码（单列）三个子节点</li>
+ *     <li>deep：订单 → 明细 → 商品（单行）</li>
+ * </ul>
+ * 子节点返回绑定列（按列名回填父行），开启批量查询时由 {@link #verifyBatching} 确认批量查询确实生效，
+ * 避免改写失败静默退回逐行查询后测到的是逐行查询的耗时。
+ *
+ * @author xqy
+ */
+@Getter
+public final class BenchmarkFixture implements AutoCloseable {
+
+    public static final int DATA_SOURCE_ID = 1;
+
+    private static final int SKU_COUNT = 100;
+    private static final AtomicLong DATABASE_SEQ = new AtomicLong();
+
+    private final int orders;
+    private final String url;
+    private final QueryServerProperties properties;
+    private final DynamicDataSourceExecutorImpl dataSourceExecutor;
+    private final NodeTaskExecutor taskExecutor;
+    private final NodeExecutor nodeExecutor;
+    private final ListApiHandler listApiHandler;
+    private final PageApiHandler pageApiHandler;
+    private final ObjectApiHandler objectApiHandler;
+    private final ExecutionPlanCompiler planCompiler = new ExecutionPlanCompiler();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * 保持内存数据库存活
+     */
+    private final Connection keepAlive;
+
+    private long nodeSeq;
+
+    public BenchmarkFixture(int orders, int itemsPerOrder, boolean batchEnabled, boolean parallelEnabled) throws SQLException {
+        this.orders = orders;
+        this.url = "jdbc:h2:mem:bench" + DATABASE_SEQ.incrementAndGet() + ";DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+        this.keepAlive = DriverManager.getConnection(url, "sa", "");
+        populate(orders, itemsPerOrder);
+
+        properties = new QueryServerProperties();
+        properties.getExecution().setBatchEnabled(batchEnabled);
+        properties.getExecution().setParallelEnabled(parallelEnabled);
+        properties.getDatasource().setIdleTimeoutMillis(0);
+
+        DataSource config = new DataSource();
+        config.setId((long) DATA_SOURCE_ID);
+        config.setName("benchmark");
+        config.setType("h2");
+        config.setUrl(url);
+        config.setUsername("sa");
+        config.setPassword("");
+        DataSourceService dataSourceService = Mockito.mock(DataSourceService.class);
+        Mockito.when(dataSourceService.getById(DATA_SOURCE_ID)).thenReturn(config);
+
+        QueryMetrics queryMetrics = new QueryMetrics(meterRegistry);
+        dataSourceExecutor = new DynamicDataSourceExecutorImpl(dataSourceService, new DataSourceLimiter(properties), properties,
+                new SqlDialects(List.of(new H2Dialect())), queryMetrics, new SlowQueryLog(properties));
+        dataSourceExecutor.init();
+
+        taskExecutor = new NodeTaskExecutor(properties);
+        taskExecutor.init();
+        NodeResultCache nodeResultCache = new NodeResultCache(properties);
+        nodeResultCache.init();
+        PageCountCache pageCountCache = new PageCountCache(properties);
+        pageCountCache.init();
+
+        nodeExecutor = new NodeExecutor(properties, taskExecutor, nodeResultCache, queryMetrics);
+        listApiHandler = new ListApiHandler(nodeExecutor, properties);
+        pageApiHandler = new PageApiHandler(nodeExecutor, taskExecutor, pageCountCache, properties);
+        objectApiHandler = new ObjectApiHandler(nodeExecutor);
+    }
+
+    /**
+     * 编译指定形状的执行计划
+     *
+     * @param apiType  API类型
+     * @param shape    节点树形状：flat/child/wide/deep
+     * @param columnar 根节点是否列式保存（仅 flat 生效）
+     */
+    public ExecutionPlan plan(ApiType apiType, String shape, boolean columnar) {
+        QueryNodeTreeDto root = apiType == ApiType.MAP
+                ? node(QueryNodeType.ROW, null, "SELECT id AS order_id, customer_id, status, amount, created_at FROM orders WHERE id = :id")
+                : node(QueryNodeType.ROWS, null, "SELECT id AS order_id, customer_id, status, amount, created_at FROM orders WHERE status >= :status ORDER BY id");
+        root.setColumnar(columnar);
+        switch (shape) {
+            case "flat" -> {
+            }
+            case "child" -> addChild(root, items());
+            case "wide" -> {
+                addChild(root, items());
+                addChild(root, node(QueryNodeType.ROW, "customer", "SELECT id AS customer_id, name AS customer_name, level FROM customer WHERE id = :customer_id"));
+                addChild(root, node(QueryNodeType.COLUMN, "skus", "SELECT sku, order_id FROM order_item WHERE order_id = :order_id"));
+            }
+            case "deep" -> {
+                QueryNodeTreeDto items = items();
+                addChild(items, node(QueryNodeType.ROW, "product", "SELECT code AS sku, name AS product_name, category FROM sku WHERE code = :sku"));
+                addChild(root, items);
+            }
+            default -> throw new IllegalArgumentException("未知的节点树形状: " + shape);
+        }
+
+        ApiInfo apiInfo = new ApiInfo();
+        apiInfo.setId(1L);
+        apiInfo.setApiName("benchmark-" + shape);
+        apiInfo.setApiPath("/benchmark/" + shape);
+        apiInfo.setApiMethod("GET");
+        apiInfo.setApiType(apiType);
+        apiInfo.setRootQueryNodeId(root.getId());
+        return planCompiler.compile(apiInfo, root);
+    }
+
+    /**
+     * 根节点查询参数：status=0 选中全部订单
+     * <p>
+     * 请求参数优先于父行列值传给子节点，因此不能包含子节点绑定的列名
+     */
+    public Map<String, Object> params() {
+        return Map.of("status", 0, "current", 1, "size", 20);
+    }
+
+    /**
+     * 对象API查询参数
+     */
+    public Map<String, Object> objectParams() {
+        return Map.of("id", Math.max(1, orders / 2));
+    }
+
+    /**
+     * 开启批量查询时执行一次子节点，语句数不少于根节点行数说明退回了逐行查询
+     */
+    public void verifyBatching(ExecutionPlan plan, Map<String, Object> params) {
+        if (!properties.getExecution().isBatchEnabled() || !plan.root().hasChildren()) {
+            return;
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        dataSourceExecutor.executeQueryForList(DATA_SOURCE_ID, plan.root().getSql(), params)
+                .forEach(row -> rows.add(new HashMap<>(row)));
+        long before = statements();
+        nodeExecutor.execute(rows, plan.root(), dataSourceExecutor, params, QueryDeadline.NONE);
+        long executed = statements() - before;
+        if (executed >= rows.size()) {
+            throw new IllegalStateException("批量查询未生效: " + plan.apiInfo().getApiName() + " 根节点 " + rows.size()
+                    + " 行，子节点执行了 " + executed + " 条语句");
+        }
+    }
+
+    private long statements() {
+        return meterRegistry.find("query.datasource").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        taskExecutor.destroy();
+        dataSourceExecutor.destroy();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        keepAlive.close();
+    }
+
+    private QueryNodeTreeDto items() {
+        return node(QueryNodeType.ROWS, "items", "SELECT id AS item_id, order_id, sku, qty, price FROM order_item WHERE order_id = :order_id");
+    }
+
+    private QueryNodeTreeDto node(QueryNodeType type, String bindingName, String sql) {
+        QueryNodeTreeDto node = new QueryNodeTreeDto();
+        node.setId(++nodeSeq);
+        node.setNodeName(bindingName == null ? "orders" : bindingName);
+        node.setQueryNodeType(type);
+        node.setSqlContent(sql);
+        node.setDataSourceId(DATA_SOURCE_ID);
+        node.setBindingName(bindingName);
+        node.setRelationType(RelationType.CHILD);
+        node.setChildrenList(new ArrayList<>());
+        node.setHasChildren(false);
+        return node;
+    }
+
+    private void addChild(QueryNodeTreeDto parent, QueryNodeTreeDto child) {
+        child.setParentId(parent.getId());
+        parent.getChildrenList().add(child);
+        parent.setHasChildren(true);
+    }
+
+    private void populate(int orders, int itemsPerOrder) throws SQLException {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, name VARCHAR(64), level INT)");
+            statement.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, customer_id BIGINT, status INT, amount DECIMAL(12, 2), created_at TIMESTAMP)");
+            statement.execute("CREATE TABLE order_item (id BIGINT PRIMARY KEY, order_id BIGINT, sku VARCHAR(32), qty INT, price DECIMAL(12, 2))");
+            statement.execute("CREATE INDEX idx_order_item_order ON order_item (order_id)");
+            statement.execute("CREATE TABLE sku (code VARCHAR(32) PRIMARY KEY, name VARCHAR(64), category VARCHAR(32))");
+        }
+
+        int customers = Math.max(1, orders / 10);
+        keepAlive.setAutoCommit(false);
+        try (PreparedStatement ps = keepAlive.prepareStatement("INSERT INTO customer VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= customers; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "customer-" + i);
+                ps.setInt(3, i % 5);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = keepAlive.prepareStatement("INSERT INTO sku VALUES (?, ?, ?)")) {
+            for (int i = 0; i < SKU_COUNT; i++) {
+                ps.setString(1, "SKU-" + i);
+                ps.setString(2, "product-" + i);
+                ps.setString(3, "category-" + i % 10);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement order = keepAlive.prepareStatement("INSERT INTO orders VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement item = keepAlive.prepareStatement("INSERT INTO order_item VALUES (?, ?, ?, ?, ?)")) {
+            long itemId = 0;
+            for (int i = 1; i <= orders; i++) {
+                order.setLong(1, i);
+                order.setLong(2, i % customers + 1);
+                order.setInt(3, i % 5);
+                order.setBigDecimal(4, BigDecimal.valueOf(i % 1000, 2));
+                order.setTimestamp(5, now);
+                order.addBatch();
+                for (int j = 0; j < itemsPerOrder; j++) {
+                    item.setLong(1, ++itemId);
+                    item.setLong(2, i);
+                    item.setString(3, "SKU-" + (itemId % SKU_COUNT));
+                    item.setInt(4, j + 1);
+                    item.setBigDecimal(5, BigDecimal.valueOf(itemId % 500, 2));
+                    item.addBatch();
+                }
+            }
+            order.executeBatch();
+            item.executeBatch();
+        }
+        keepAlive.commit();
+        keepAlive.setAutoCommit(true);
+    }
+}
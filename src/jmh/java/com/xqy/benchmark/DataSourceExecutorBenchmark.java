@@ -0,0 +1,74 @@
+package com.xqy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源执行器基准：多行、列式、单行、单值查询
+ *
+ * @author xqy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataSourceExecutorBenchmark {
+
+    private static final String LIST_SQL = "SELECT id, customer_id, status, amount, created_at FROM orders WHERE id <= :rows";
+    private static final String MAP_SQL = "SELECT id, customer_id, status, amount, created_at FROM orders WHERE id = :id";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM orders WHERE status >= :status";
+
+    @Param({"100", "1000", "10000"})
+    private int rows;
+
+    private BenchmarkFixture fixture;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() throws SQLException {
+        fixture = new BenchmarkFixture(rows, 0, true, false);
+        params = Map.of("rows", rows, "id", rows / 2, "status", 0);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> queryForList() {
+        return fixture.getDataSourceExecutor().executeQueryForList(BenchmarkFixture.DATA_SOURCE_ID, LIST_SQL, params);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> queryForColumnar() {
+        return fixture.getDataSourceExecutor().executeQueryForColumnar(BenchmarkFixture.DATA_SOURCE_ID, LIST_SQL, params);
+    }
+
+    @Benchmark
+    public Map<String, Object> queryForMap() {
+        return fixture.getDataSourceExecutor().executeQueryForMap(BenchmarkFixture.DATA_SOURCE_ID, MAP_SQL, params);
+    }
+
+    @Benchmark
+    public Object queryForObject() {
+        return fixture.getDataSourceExecutor().executeQueryForObject(BenchmarkFixture.DATA_SOURCE_ID, COUNT_SQL, params);
+    }
+}
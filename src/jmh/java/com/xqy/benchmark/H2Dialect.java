@@ -0,0 +1,31 @@
+package com.xqy.benchmark;
+
+import com.xqy.datasource.dialect.SqlDialect;
+
+/**
+ * 基准测试使用的 H2 方言
+ *
+ * @author xqy
+ */
+public class H2Dialect implements SqlDialect {
+
+    @Override
+    public String type() {
+        return "h2";
+    }
+
+    @Override
+    public String driverClassName() {
+        return "org.h2.Driver";
+    }
+
+    @Override
+    public String pageSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM + " OFFSET :" + OFFSET_PARAM;
+    }
+
+    @Override
+    public String limitSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM;
+    }
+}
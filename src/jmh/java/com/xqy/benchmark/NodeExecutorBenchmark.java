@@ -0,0 +1,84 @@
+package com.xqy.benchmark;
+
+import com.xqy.enums.ApiType;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.service.impl.handler.QueryDeadline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点执行器基准：在固定的根节点结果上执行子节点树
+ * <p>
+ * 每次调用复制根节点行（子节点结果会回填到父行中），复制开销计入结果。
+ *
+ * @author xqy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeExecutorBenchmark {
+
+    @Param({"child", "wide", "deep"})
+    private String shape;
+
+    @Param({"100", "1000"})
+    private int orders;
+
+    @Param({"3"})
+    private int itemsPerOrder;
+
+    @Param({"true", "false"})
+    private boolean batch;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private BenchmarkFixture fixture;
+    private ExecutionPlan plan;
+    private Map<String, Object> params;
+    private List<Map<String, Object>> rootRows;
+
+    @Setup
+    public void setup() throws SQLException {
+        fixture = new BenchmarkFixture(orders, itemsPerOrder, batch, parallel);
+        plan = fixture.plan(ApiType.LIST, shape, false);
+        params = fixture.params();
+        fixture.verifyBatching(plan, params);
+        rootRows = fixture.getDataSourceExecutor().executeQueryForList(BenchmarkFixture.DATA_SOURCE_ID, plan.root().getSql(), params);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> execute() {
+        List<Map<String, Object>> rows = new ArrayList<>(rootRows.size());
+        for (Map<String, Object> row : rootRows) {
+            rows.add(new HashMap<>(row));
+        }
+        fixture.getNodeExecutor().execute(rows, plan.root(), fixture.getDataSourceExecutor(), params, QueryDeadline.NONE);
+        return rows;
+    }
+}
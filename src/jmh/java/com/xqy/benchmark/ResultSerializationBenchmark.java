@@ -0,0 +1,65 @@
+package com.xqy.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.xqy.common.Result;
+import com.xqy.enums.ApiType;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.service.impl.handler.QueryDeadline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应序列化基准：把列表API结果包装为 {@link Result} 后序列化为 JSON
+ *
+ * @author xqy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSerializationBenchmark {
+
+    @Param({"flat", "child", "deep"})
+    private String shape;
+
+    @Param({"100", "1000"})
+    private int orders;
+
+    @Param({"false", "true"})
+    private boolean columnar;
+
+    private BenchmarkFixture fixture;
+    private Result<Object> result;
+
+    @Setup
+    public void setup() throws SQLException {
+        fixture = new BenchmarkFixture(orders, 3, true, false);
+        ExecutionPlan plan = fixture.plan(ApiType.LIST, shape, columnar);
+        result = Result.success(fixture.getListApiHandler().handle(plan, fixture.getDataSourceExecutor(), fixture.params(), QueryDeadline.NONE));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return fixture.getObjectMapper().writeValueAsBytes(result);
+    }
+}
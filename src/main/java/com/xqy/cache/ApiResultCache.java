@@ -0,0 +1,146 @@
+package com.xqy.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.dto.ResultCacheStatsDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * API结果缓存
+ * <p>
+ * 按 API路由 + 规范化参数 缓存结果，过期时间按API配置，按估算内存大小做 W-TinyLFU 淘汰。
+ * 同一个键的并发未命中只执行一次查询，其余请求等待同一结果。
+ *
+ * @author xqy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApiResultCache {
+
+    private final QueryServerProperties properties;
+
+    private AsyncCache<CacheKey, Object> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getResultCache().getMaxSizeMb() * 1024 * 1024)
+                .weigher((CacheKey key, Object value) -> CacheWeights.weigh(value))
+                .expireAfter(new Expiry<CacheKey, Object>() {
+                    @Override
+                    public long expireAfterCreate(CacheKey key, Object value, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos(key.ttlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CacheKey key, Object value, long currentTime, long currentDuration) {
+                        return TimeUnit.SECONDS.toNanos(key.ttlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterRead(CacheKey key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * 获取缓存结果，未命中时执行 loader 并缓存
+     *
+     * @param route      API路由（apiPath:method）
+     * @param params     请求参数
+     * @param ttlSeconds 缓存时间（秒）
+     * @param loader     查询逻辑
+     * @return 结果
+     */
+    public Object get(String route, Map<String, Object> params, int ttlSeconds, Supplier<Object> loader) {
+        CacheKey key = new CacheKey(route, normalize(params), ttlSeconds);
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> future = cache.get(key, (k, executor) -> created);
+        if (future != created) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+        try {
+            Object result = loader.get();
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // 任何失败都要完成 future，否则等待同一个键的请求会一直阻塞；失败的结果不缓存
+            created.completeExceptionally(e);
+            cache.asMap().remove(key, created);
+            throw e;
+        }
+    }
+
+    /**
+     * 清除指定API的缓存
+     */
+    public void evict(String route) {
+        cache.asMap().keySet().removeIf(key -> key.route().equals(route));
+        log.info("已清除API结果缓存: {}", route);
+    }
+
+    /**
+     * 清除全部缓存
+     */
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * 缓存统计
+     */
+    public ResultCacheStatsDto stats() {
+        CacheStats stats = cache.synchronous().stats();
+        ResultCacheStatsDto dto = new ResultCacheStatsDto();
+        dto.setSize(cache.synchronous().estimatedSize());
+        dto.setWeight(cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        dto.setHits(stats.hitCount());
+        dto.setMisses(stats.missCount());
+        dto.setHitRate(stats.hitRate());
+        dto.setEvictions(stats.evictionCount());
+        return dto;
+    }
+
+    /**
+     * 参数的不可变副本，按内容比较，参数顺序不同的相同请求命中同一缓存
+     * 不能用 toString 作为键：{a="1, b=2"} 与 {a="1", b="2"} 拼接结果相同
+     */
+    private Map<String, Object> normalize(Map<String, Object> params) {
+        return params == null ? Map.of() : Collections.unmodifiableMap(new TreeMap<>(params));
+    }
+
+    /**
+     * 缓存键
+     */
+    private record CacheKey(String route, Map<String, Object> params, int ttlSeconds) {
+    }
+}
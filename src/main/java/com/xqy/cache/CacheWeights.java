@@ -0,0 +1,49 @@
+package com.xqy.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 缓存权重估算
+ *
+ * @author xqy
+ */
+final class CacheWeights {
+
+    private CacheWeights() {
+    }
+
+    /**
+     * 粗略估算结果占用的内存（字节），用作 Caffeine weigher
+     */
+    static int weigh(Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, estimateSize(value, 0));
+    }
+
+    private static long estimateSize(Object value, int depth) {
+        if (value == null || depth > 16) {
+            return 8;
+        }
+        if (value instanceof CharSequence text) {
+            return 40 + 2L * text.length();
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 64;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + estimateSize(entry.getKey(), depth + 1) + estimateSize(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 40;
+            for (Object element : collection) {
+                size += 8 + estimateSize(element, depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        return 24;
+    }
+}
@@ -0,0 +1,93 @@
+package com.xqy.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.plan.PlanNode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点结果跨请求缓存
+ * <p>
+ * 只缓存配置了 cacheTtlSeconds 的节点，键为 节点ID + 绑定参数值。
+ * 缓存中的行不会被修改：带下层节点的结果在存入和取出时都会复制，下层回填只作用于副本。
+ *
+ * @author xqy
+ */
+@Component
+@RequiredArgsConstructor
+public class NodeResultCache {
+
+    private final QueryServerProperties properties;
+
+    private Cache<CacheKey, List<Map<String, Object>>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getNodeCache().getMaxSizeMb() * 1024 * 1024)
+                .weigher((CacheKey key, List<Map<String, Object>> value) -> CacheWeights.weigh(value))
+                .expireAfter(new Expiry<CacheKey, List<Map<String, Object>>>() {
+                    @Override
+                    public long expireAfterCreate(CacheKey key, List<Map<String, Object>> value, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos(key.ttlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CacheKey key, List<Map<String, Object>> value, long currentTime, long currentDuration) {
+                        return TimeUnit.SECONDS.toNanos(key.ttlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterRead(CacheKey key, List<Map<String, Object>> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 获取节点缓存结果
+     *
+     * @param node     节点
+     * @param bindings 绑定参数值（按节点参数顺序，已归一化）
+     * @return 结果行，未命中返回 null
+     */
+    public List<Map<String, Object>> get(PlanNode node, List<Object> bindings) {
+        List<Map<String, Object>> rows = cache.getIfPresent(new CacheKey(node.getId(), bindings, node.getCacheTtlSeconds()));
+        return rows == null || !node.hasChildren() ? rows : copyRows(rows);
+    }
+
+    /**
+     * 缓存节点结果
+     */
+    public void put(PlanNode node, List<Object> bindings, List<Map<String, Object>> rows) {
+        cache.put(new CacheKey(node.getId(), bindings, node.getCacheTtlSeconds()), node.hasChildren() ? copyRows(rows) : rows);
+    }
+
+    private List<Map<String, Object>> copyRows(List<Map<String, Object>> rows) {
+        List<Map<String, Object>> copy = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            // 与驱动返回的行一致，列名不区分大小写
+            Map<String, Object> copied = new LinkedCaseInsensitiveMap<>(row.size());
+            copied.putAll(row);
+            copy.add(copied);
+        }
+        return copy;
+    }
+
+    /**
+     * 缓存键
+     */
+    private record CacheKey(Long nodeId, List<Object> bindings, int ttlSeconds) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.xqy.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.xqy.config.QueryServerProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 分页总数缓存
+ * <p>
+ * 按 API + 过滤参数（去掉分页参数）缓存 COUNT 结果，同一过滤条件翻页时不再重复统计。
+ * 同一个键的并发未命中只统计一次。
+ *
+ * @author xqy
+ */
+@Component
+@RequiredArgsConstructor
+public class PageCountCache {
+
+    /**
+     * 不参与缓存键的分页参数
+     */
+    private static final Set<String> PAGE_PARAMS = Set.of("current", "size", "cursor");
+
+    private final QueryServerProperties properties;
+
+    private Cache<CacheKey, Long> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getPageCount().getMaxEntries())
+                .expireAfter(new Expiry<CacheKey, Long>() {
+                    @Override
+                    public long expireAfterCreate(CacheKey key, Long value, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos(key.ttlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CacheKey key, Long value, long currentTime, long currentDuration) {
+                        return TimeUnit.SECONDS.toNanos(key.ttlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterRead(CacheKey key, Long value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 获取缓存的总数，未命中时执行 loader 并缓存
+     *
+     * @param apiId      API ID
+     * @param params     请求参数
+     * @param ttlSeconds 缓存时间（秒）
+     * @param loader     统计逻辑
+     * @return 总数
+     */
+    public long get(Long apiId, Map<String, Object> params, int ttlSeconds, Supplier<Long> loader) {
+        return cache.get(new CacheKey(apiId, normalize(params), ttlSeconds), key -> loader.get());
+    }
+
+    /**
+     * 清除指定API的缓存
+     */
+    public void evict(Long apiId) {
+        cache.asMap().keySet().removeIf(key -> key.apiId().equals(apiId));
+    }
+
+    /**
+     * 过滤参数的不可变副本，按内容比较（不用 toString，不同参数可能拼接出相同字符串）
+     */
+    private Map<String, Object> normalize(Map<String, Object> params) {
+        TreeMap<String, Object> filters = new TreeMap<>();
+        if (params != null) {
+            params.forEach((name, value) -> {
+                if (!PAGE_PARAMS.contains(name)) {
+                    filters.put(name, value);
+                }
+            });
+        }
+        return Collections.unmodifiableMap(filters);
+    }
+
+    /**
+     * 缓存键
+     */
+    private record CacheKey(Long apiId, Map<String, Object> params, int ttlSeconds) {
+    }
+}
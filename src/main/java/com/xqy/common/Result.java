@@ -1,5 +1,6 @@
 package com.xqy.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.io.Serial;
@@ -29,6 +30,12 @@ public class Result<T> implements Serializable {
      */
     private T data;
 
+    /**
+     * 执行追踪，仅在请求追踪时返回
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Object trace;
+
     /**
      * 成功响应
      */
@@ -0,0 +1,22 @@
+package com.xqy.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * 流式响应数据
+ * <p>
+ * 处理器返回该对象时，控制器写出 {@link Result} 的 code/message 后将 data 字段交给它直接写入响应流，
+ * 查询结果不在内存中整体保留。
+ */
+@FunctionalInterface
+public interface StreamingBody {
+
+    /**
+     * 写出 data 字段的值
+     *
+     * @param generator 响应流上的 JSON 生成器
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
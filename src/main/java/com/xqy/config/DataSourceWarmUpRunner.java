@@ -0,0 +1,73 @@
+package com.xqy.config;
+
+import com.xqy.service.DynamicApiService;
+import com.xqy.service.DynamicDataSourceExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 启动预热：并行初始化API引用的数据源连接池
+ * <p>
+ * 在 ApplicationRunner 中同步执行，Spring Boot 在所有 Runner 结束后才发布 ACCEPTING_TRAFFIC，
+ * 因此就绪状态在预热完成（或超时）后才报告。单个数据源预热失败只记录日志，不影响启动。
+ *
+ * @author xqy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataSourceWarmUpRunner implements ApplicationRunner {
+
+    private final DynamicApiService dynamicApiService;
+    private final DynamicDataSourceExecutor dataSourceExecutor;
+    private final QueryServerProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        QueryServerProperties.Startup startup = properties.getStartup();
+        if (!startup.isWarmUp()) {
+            return;
+        }
+        Set<Integer> dataSourceIds = dynamicApiService.getReferencedDataSourceIds();
+        if (dataSourceIds.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        log.info("开始预热数据源连接池，共 {} 个", dataSourceIds.size());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(dataSourceIds.size(), Math.max(1, startup.getThreads())));
+        try {
+            CompletableFuture<?>[] futures = dataSourceIds.stream()
+                    .map(id -> CompletableFuture.runAsync(() -> warmUp(id), executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).get(startup.getWarmUpTimeoutMillis(), TimeUnit.MILLISECONDS);
+            log.info("数据源连接池预热完成，耗时 {}ms", System.currentTimeMillis() - start);
+        } catch (TimeoutException e) {
+            log.warn("数据源连接池预热超时（{}ms），未完成的数据源在首次请求时初始化", startup.getWarmUpTimeoutMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("数据源连接池预热异常", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void warmUp(Integer dataSourceId) {
+        try {
+            dataSourceExecutor.warmUp(dataSourceId);
+        } catch (Exception e) {
+            log.warn("数据源预热失败: {}", dataSourceId, e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.xqy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 查询服务配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "query-server")
+public class QueryServerProperties {
+
+    /**
+     * 节点执行配置
+     */
+    private Execution execution = new Execution();
+
+    /**
+     * 动态数据源配置
+     */
+    private Datasource datasource = new Datasource();
+
+    /**
+     * API结果缓存配置
+     */
+    private ResultCache resultCache = new ResultCache();
+
+    /**
+     * 节点结果缓存配置
+     */
+    private NodeCache nodeCache = new NodeCache();
+
+    /**
+     * 流式响应配置
+     */
+    private Streaming streaming = new Streaming();
+
+    /**
+     * 分页总数配置
+     */
+    private PageCount pageCount = new PageCount();
+
+    /**
+     * 启动配置
+     */
+    private Startup startup = new Startup();
+
+    /**
+     * 执行追踪配置
+     */
+    private Trace trace = new Trace();
+
+    /**
+     * 请求日志配置
+     */
+    private Logging logging = new Logging();
+
+    /**
+     * 慢查询记录配置
+     */
+    private SlowQuery slowQuery = new SlowQuery();
+
+    @Data
+    public static class Execution {
+
+        /**
+         * 是否开启子节点批量执行（IN 展开 + 内存哈希关联）
+         */
+        private boolean batchEnabled = true;
+
+        /**
+         * 单批次最多绑定的父行键数量
+         */
+        private int batchSize = 500;
+
+        /**
+         * 是否开启兄弟节点/逐行子查询并行执行
+         */
+        private boolean parallelEnabled = false;
+
+        /**
+         * 节点并行执行线程数
+         */
+        private int parallelThreads = 32;
+
+        /**
+         * 节点并行执行队列长度，队列满时由调用线程执行
+         */
+        private int parallelQueueCapacity = 1000;
+    }
+
+    @Data
+    public static class Datasource {
+
+        /**
+         * 等待数据源执行许可的超时时间（毫秒）
+         */
+        private long permitTimeoutMillis = 60000;
+
+        /**
+         * 每个数据源解析后SQL的缓存条数
+         */
+        private int sqlCacheLimit = 256;
+
+        /**
+         * 每个数据源最大并发查询数，不大于0时等于连接池 maxActive
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * 每个数据源最多排队等待许可的请求数，超出直接拒绝
+         */
+        private int queueSize = 100;
+
+        /**
+         * 熔断配置
+         */
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        /**
+         * 连接池默认配置，数据源未单独配置时使用
+         */
+        private Pool pool = new Pool();
+
+        /**
+         * 连接池空闲多久后关闭（毫秒），不大于0时不关闭
+         */
+        private long idleTimeoutMillis = 1800000;
+
+        /**
+         * 空闲连接池检查间隔（毫秒）
+         */
+        private long idleCheckMillis = 60000;
+
+        /**
+         * 替换或关闭连接池时等待执行中查询结束的最长时间（毫秒）
+         */
+        private long drainTimeoutMillis = 30000;
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 初始连接数，默认 0 按需建立连接
+         */
+        private int initialSize = 0;
+
+        /**
+         * 最小空闲连接数
+         */
+        private int minIdle = 1;
+
+        /**
+         * 最大连接数
+         */
+        private int maxActive = 20;
+
+        /**
+         * 获取连接最大等待时间（毫秒）
+         */
+        private int maxWait = 10000;
+
+        /**
+         * 每个连接缓存的预编译语句数
+         */
+        private int psCacheSize = 20;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 是否开启熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 统计窗口（最近调用次数）
+         */
+        private int windowSize = 50;
+
+        /**
+         * 窗口内至少调用多少次才计算比例
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败率阈值（百分比）
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 慢调用阈值（毫秒）
+         */
+        private long slowCallMillis = 5000;
+
+        /**
+         * 慢调用率阈值（百分比）
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * 熔断持续时间（毫秒），之后进入半开状态放行探测请求
+         */
+        private long openMillis = 30000;
+
+        /**
+         * 半开状态放行的探测请求数
+         */
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class ResultCache {
+
+        /**
+         * 结果缓存占用内存上限（MB，按结果估算大小计算）
+         */
+        private long maxSizeMb = 256;
+    }
+
+    @Data
+    public static class NodeCache {
+
+        /**
+         * 节点结果缓存占用内存上限（MB，按结果估算大小计算）
+         */
+        private long maxSizeMb = 128;
+    }
+
+    @Data
+    public static class Streaming {
+
+        /**
+         * 流式读取 ResultSet 的 fetchSize
+         */
+        private int fetchSize = 1000;
+
+        /**
+         * 流式输出时每攒够多少行执行一次子节点并写出
+         */
+        private int chunkSize = 500;
+
+        /**
+         * 每个数据源同时进行的流式查询数，不超过连接池 maxActive 的一半
+         * 流式查询同时占用一个普通查询许可，与普通查询合计不超过连接池大小，不计入熔断统计
+         */
+        private int maxConcurrentPerSource = 2;
+    }
+
+    @Data
+    public static class PageCount {
+
+        /**
+         * 缓存统计策略未配置缓存时间时的默认值（秒）
+         */
+        private int defaultTtlSeconds = 60;
+
+        /**
+         * 总数缓存最多保留的过滤条件数
+         */
+        private long maxEntries = 10000;
+    }
+
+    @Data
+    public static class Startup {
+
+        /**
+         * 启动时是否预热API引用的数据源连接池，预热完成后才报告就绪
+         */
+        private boolean warmUp = false;
+
+        /**
+         * 预热的线程数
+         */
+        private int threads = 8;
+
+        /**
+         * 预热最长等待时间（毫秒），超时后不再等待，未完成的数据源在首次请求时初始化
+         */
+        private long warmUpTimeoutMillis = 60000;
+    }
+
+    @Data
+    public static class Trace {
+
+        /**
+         * 管理令牌，请求头 X-Admin-Token 与之一致时才响应追踪请求，为空时不响应
+         */
+        private String adminToken = "";
+
+        /**
+         * 采样率（0~1），采样的请求追踪结果写入日志，0 表示不采样
+         */
+        private double sampleRate = 0;
+
+        /**
+         * 每个节点最多记录的语句数，超出的只计入汇总
+         */
+        private int maxStatementsPerNode = 20;
+    }
+
+    @Data
+    public static class Logging {
+
+        /**
+         * INFO 级别下请求完成日志的采样率（0~1），DEBUG 级别时逐条记录
+         */
+        private double requestSampleRate = 0.01;
+    }
+
+    @Data
+    public static class SlowQuery {
+
+        /**
+         * 默认慢查询阈值（毫秒），数据源未单独配置时使用，不大于0时不记录
+         */
+        private long thresholdMillis = 1000;
+
+        /**
+         * 保留最近的慢查询条数
+         */
+        private int bufferSize = 500;
+
+        /**
+         * 是否在后台对慢查询执行 EXPLAIN（同一数据源的同一SQL只执行一次）
+         */
+        private boolean explainEnabled = false;
+
+        /**
+         * EXPLAIN 语句超时（秒）
+         */
+        private int explainTimeoutSeconds = 10;
+    }
+}
@@ -3,6 +3,7 @@ package com.xqy.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xqy.common.Result;
+import com.xqy.dto.ResultCacheStatsDto;
 import com.xqy.entity.ApiInfo;
 import com.xqy.service.ApiInfoService;
 import com.xqy.service.DynamicApiService;
@@ -102,4 +103,21 @@ public class ApiInfoController {
         
         return Result.success();
     }
+
+    /**
+     * 清除API结果缓存
+     */
+    @DeleteMapping("/cache/{id}")
+    public Result<Void> evictCache(@PathVariable Long id) {
+        dynamicApiService.evictResultCache(id);
+        return Result.success();
+    }
+
+    /**
+     * API结果缓存统计
+     */
+    @GetMapping("/cache/stats")
+    public Result<ResultCacheStatsDto> cacheStats() {
+        return Result.success(dynamicApiService.getResultCacheStats());
+    }
 }
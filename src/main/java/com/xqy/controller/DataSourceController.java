@@ -3,6 +3,9 @@ package com.xqy.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xqy.common.Result;
+import com.xqy.dto.DataSourceStatusDto;
+import com.xqy.dto.SlowQueryDto;
+import com.xqy.dto.SqlCacheStatsDto;
 import com.xqy.entity.DataSource;
 import com.xqy.service.DataSourceService;
 import com.xqy.service.DynamicDataSourceExecutor;
@@ -81,11 +84,22 @@ public class DataSourceController {
     }
 
     /**
-     * 更新
+     * 更新，只更新传入的字段；连接池与慢查询配置恢复默认见 {@link #resetPoolConfig(Integer)}
      */
     @PutMapping
     public Result<Void> update(@RequestBody DataSource dataSource) {
         dataSourceService.updateById(dataSource);
+        dataSourceExecutor.refreshDataSource(dataSource.getId().intValue());
+        return Result.success();
+    }
+
+    /**
+     * 连接池与慢查询配置恢复默认
+     */
+    @PutMapping("/pool/reset/{id}")
+    public Result<Void> resetPoolConfig(@PathVariable Integer id) {
+        dataSourceService.resetPoolConfig(id);
+        dataSourceExecutor.refreshDataSource(id);
         return Result.success();
     }
 
@@ -111,12 +125,38 @@ public class DataSourceController {
         }
     }
 
+    /**
+     * SQL解析缓存统计
+     */
+    @GetMapping("/sql-cache/stats")
+    public Result<List<SqlCacheStatsDto>> sqlCacheStats() {
+        return Result.success(dataSourceExecutor.getSqlCacheStats());
+    }
+
+    /**
+     * 数据源隔离与熔断状态
+     */
+    @GetMapping("/status")
+    public Result<List<DataSourceStatusDto>> status() {
+        return Result.success(dataSourceExecutor.getDataSourceStatus());
+    }
+
+    /**
+     * 慢查询汇总
+     */
+    @GetMapping("/slow-queries")
+    public Result<List<SlowQueryDto>> slowQueries(@RequestParam(required = false) Integer dataSourceId,
+                                                  @RequestParam(defaultValue = "20") Integer top) {
+        return Result.success(dataSourceExecutor.getSlowQueries(dataSourceId, top));
+    }
+
     /**
      * 删除
      */
     @DeleteMapping("/{id}")
     public Result<Void> delete(@PathVariable Integer id) {
         dataSourceService.removeById(id);
+        dataSourceExecutor.refreshDataSource(id);
         return Result.success();
     }
 
@@ -126,6 +166,7 @@ public class DataSourceController {
     @DeleteMapping("/batch")
     public Result<Void> deleteBatch(@RequestBody List<Integer> ids) {
         dataSourceService.removeByIds(ids);
+        ids.forEach(dataSourceExecutor::refreshDataSource);
         return Result.success();
     }
 }
@@ -1,12 +1,20 @@
 package com.xqy.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xqy.common.Result;
+import com.xqy.common.StreamingBody;
 import com.xqy.service.DynamicApiService;
+import com.xqy.trace.QueryTrace;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -20,49 +28,50 @@ import java.util.Map;
 public class DynamicApiController {
 
     private final DynamicApiService dynamicApiService;
+    private final ObjectMapper objectMapper;
 
     /**
      * 动态API请求处理 - GET
      */
     @GetMapping("/**")
-    public Result<Object> handleGetRequest(HttpServletRequest request,
-                                            @RequestParam(required = false) Map<String, Object> params) {
+    public Result<Object> handleGetRequest(HttpServletRequest request, HttpServletResponse response,
+                                            @RequestParam(required = false) Map<String, Object> params) throws IOException {
         String apiPath = extractApiPath(request);
         Object result = dynamicApiService.executeApi(apiPath, "GET", params, request);
-        return Result.success(result);
+        return respond(result, request, response);
     }
 
     /**
      * 动态API请求处理 - POST
      */
     @PostMapping("/**")
-    public Result<Object> handlePostRequest(HttpServletRequest request,
-                                             @RequestBody(required = false) Map<String, Object> params) {
+    public Result<Object> handlePostRequest(HttpServletRequest request, HttpServletResponse response,
+                                             @RequestBody(required = false) Map<String, Object> params) throws IOException {
         String apiPath = extractApiPath(request);
         Object result = dynamicApiService.executeApi(apiPath, "POST", params, request);
-        return Result.success(result);
+        return respond(result, request, response);
     }
 
     /**
      * 动态API请求处理 - PUT
      */
     @PutMapping("/**")
-    public Result<Object> handlePutRequest(HttpServletRequest request,
-                                            @RequestBody(required = false) Map<String, Object> params) {
+    public Result<Object> handlePutRequest(HttpServletRequest request, HttpServletResponse response,
+                                            @RequestBody(required = false) Map<String, Object> params) throws IOException {
         String apiPath = extractApiPath(request);
         Object result = dynamicApiService.executeApi(apiPath, "PUT", params, request);
-        return Result.success(result);
+        return respond(result, request, response);
     }
 
     /**
      * 动态API请求处理 - DELETE
      */
     @DeleteMapping("/**")
-    public Result<Object> handleDeleteRequest(HttpServletRequest request,
-                                               @RequestParam(required = false) Map<String, Object> params) {
+    public Result<Object> handleDeleteRequest(HttpServletRequest request, HttpServletResponse response,
+                                               @RequestParam(required = false) Map<String, Object> params) throws IOException {
         String apiPath = extractApiPath(request);
         Object result = dynamicApiService.executeApi(apiPath, "DELETE", params, request);
-        return Result.success(result);
+        return respond(result, request, response);
     }
 
     /**
@@ -74,6 +83,39 @@ public class DynamicApiController {
         return Result.success();
     }
 
+    /**
+     * 包装响应结果，流式结果直接写入响应流
+     * 写出前失败时清空缓冲区交由全局异常处理；已开始写出后失败只能中断输出，客户端会收到不完整的JSON
+     */
+    private Result<Object> respond(Object result, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!(result instanceof StreamingBody body)) {
+            Result<Object> envelope = Result.success(result);
+            envelope.setTrace(request.getAttribute(QueryTrace.REQUEST_ATTRIBUTE));
+            return envelope;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Result<Object> envelope = Result.success();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("code", envelope.getCode());
+            generator.writeStringField("message", envelope.getMessage());
+            generator.writeFieldName("data");
+            body.writeTo(generator);
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException | RuntimeException e) {
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                throw e;
+            }
+            log.error("流式输出中断", e);
+        }
+        return null;
+    }
+
     /**
      * 从请求中提取API路径
      */
@@ -0,0 +1,111 @@
+package com.xqy.datasource;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.ParameterDisposer;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带解析缓存统计的 NamedParameterJdbcTemplate
+ * <p>
+ * 每个数据源复用一个实例，解析后的SQL保存在有界 LRU 缓存中，并记录命中/未命中次数。
+ *
+ * @author xqy
+ */
+public class CachingNamedParameterJdbcTemplate extends NamedParameterJdbcTemplate {
+
+    private final ConcurrentLruCache<String, ParsedSql> parsedSqlCache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingNamedParameterJdbcTemplate(JdbcOperations jdbcOperations, int cacheLimit) {
+        super(jdbcOperations);
+        // 由本类维护缓存，关闭父类缓存避免重复保存
+        setCacheLimit(0);
+        this.parsedSqlCache = new ConcurrentLruCache<>(Math.max(0, cacheLimit), NamedParameterUtils::parseSqlStatement);
+    }
+
+    @Override
+    protected ParsedSql getParsedSql(String sql) {
+        if (parsedSqlCache.contains(sql)) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return parsedSqlCache.get(sql);
+    }
+
+    /**
+     * 带语句超时执行查询，超时只作用于本次语句，不修改共享模板的配置
+     *
+     * @param queryTimeoutSeconds 语句超时（秒），不大于0时不限制
+     */
+    public <T> T query(String sql, Map<String, ?> paramMap, int queryTimeoutSeconds, ResultSetExtractor<T> rse) {
+        if (queryTimeoutSeconds <= 0) {
+            return query(sql, paramMap, rse);
+        }
+        PreparedStatementCreator creator = getPreparedStatementCreator(sql, new MapSqlParameterSource(paramMap));
+        return getJdbcOperations().query(new TimeoutStatementCreator(creator, queryTimeoutSeconds), rse);
+    }
+
+    /**
+     * SQL是否已在解析缓存中
+     */
+    public boolean isParsed(String sql) {
+        return parsedSqlCache.contains(sql);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getCacheSize() {
+        return parsedSqlCache.size();
+    }
+
+    public int getCacheCapacity() {
+        return parsedSqlCache.capacity();
+    }
+
+    /**
+     * 创建语句后设置超时，其余行为委托原始 creator
+     */
+    private record TimeoutStatementCreator(PreparedStatementCreator delegate, int queryTimeoutSeconds)
+            implements PreparedStatementCreator, SqlProvider, ParameterDisposer {
+
+        @Override
+        public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+            PreparedStatement ps = delegate.createPreparedStatement(con);
+            ps.setQueryTimeout(queryTimeoutSeconds);
+            return ps;
+        }
+
+        @Override
+        public String getSql() {
+            return delegate instanceof SqlProvider provider ? provider.getSql() : null;
+        }
+
+        @Override
+        public void cleanupParameters() {
+            if (delegate instanceof ParameterDisposer disposer) {
+                disposer.cleanupParameters();
+            }
+        }
+    }
+}
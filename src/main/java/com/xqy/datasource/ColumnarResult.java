@@ -0,0 +1,306 @@
+package com.xqy.datasource;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * 列式查询结果
+ * <p>
+ * 列名只保存一份，Long/Integer/Double 列存为基本类型数组，其余列存为对象数组；
+ * 对外仍是 {@code List<Map<String, Object>>}，每行是按需创建的只读视图，Jackson 可直接序列化。
+ * 行视图不可修改，只用于不会回填下层节点结果的叶子节点与无子节点的列表根节点。
+ * 批量查询的子节点结果按父行分组后由 {@link #select} 拆分为各自的列式结果。
+ *
+ * @author xqy
+ */
+public final class ColumnarResult extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    private final String[] columnNames;
+    private final Map<String, Integer> columnIndex;
+    private final Column[] columns;
+    private final int size;
+
+    ColumnarResult(String[] columnNames, Column[] columns, int size) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.size = size;
+        LinkedCaseInsensitiveMap<Integer> index = new LinkedCaseInsensitiveMap<>(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            // 与 ColumnMapRowMapper 一致，重名列取后出现的值
+            index.put(columnNames[i], i);
+        }
+        this.columnIndex = index;
+    }
+
+    @Override
+    public Map<String, Object> get(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= size) {
+            throw new IndexOutOfBoundsException("Index: " + rowIndex + ", Size: " + size);
+        }
+        return new RowView(rowIndex);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按行号取出部分行组成新的列式结果并去掉指定列（列名不区分大小写），列值复制到新的存储，不引用原结果
+     *
+     * @param rows        行号，按结果中的顺序排列
+     * @param dropColumns 去掉的列
+     */
+    public ColumnarResult select(int[] rows, Collection<String> dropColumns) {
+        Set<String> dropped = Collections.newSetFromMap(new LinkedCaseInsensitiveMap<>());
+        dropped.addAll(dropColumns);
+        List<String> names = new ArrayList<>(columnNames.length);
+        List<Column> copies = new ArrayList<>(columns.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            if (!dropped.contains(columnNames[i])) {
+                names.add(columnNames[i]);
+                copies.add(columns[i].copy(rows));
+            }
+        }
+        return new ColumnarResult(names.toArray(String[]::new), copies.toArray(Column[]::new), rows.length);
+    }
+
+    /**
+     * 单行只读视图
+     */
+    private final class RowView extends AbstractMap<String, Object> {
+
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer column = key instanceof String name ? columnIndex.get(name) : null;
+            return column == null ? null : columns[column].get(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && columnIndex.containsKey(name);
+        }
+
+        @Override
+        public int size() {
+            return columnIndex.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Integer>> columnIterator = columnIndex.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return columnIterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!columnIterator.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Integer> column = columnIterator.next();
+                            return new SimpleImmutableEntry<>(columnNames[column.getValue()], columns[column.getValue()].get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columnIndex.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * 列存储
+     */
+    abstract static class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        abstract Object get(int row);
+
+        abstract void trim(int size);
+
+        /**
+         * 复制指定行到新的列存储
+         */
+        abstract Column copy(int[] rows);
+
+        static int grow(int capacity, int required) {
+            return required <= capacity ? capacity : Math.max(required, capacity + (capacity >> 1) + 1);
+        }
+    }
+
+    static final class LongColumn extends Column {
+
+        private long[] values = new long[16];
+
+        @Override
+        Column copy(int[] rows) {
+            LongColumn copy = new LongColumn();
+            copy.values = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                copy.values[i] = values[rows[i]];
+                if (nulls.get(rows[i])) {
+                    copy.nulls.set(i);
+                }
+            }
+            return copy;
+        }
+
+        void set(int row, long value, boolean isNull) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+            if (isNull) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    static final class IntColumn extends Column {
+
+        private int[] values = new int[16];
+
+        @Override
+        Column copy(int[] rows) {
+            IntColumn copy = new IntColumn();
+            copy.values = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                copy.values[i] = values[rows[i]];
+                if (nulls.get(rows[i])) {
+                    copy.nulls.set(i);
+                }
+            }
+            return copy;
+        }
+
+        void set(int row, int value, boolean isNull) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+            if (isNull) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    static final class DoubleColumn extends Column {
+
+        private double[] values = new double[16];
+
+        @Override
+        Column copy(int[] rows) {
+            DoubleColumn copy = new DoubleColumn();
+            copy.values = new double[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                copy.values[i] = values[rows[i]];
+                if (nulls.get(rows[i])) {
+                    copy.nulls.set(i);
+                }
+            }
+            return copy;
+        }
+
+        void set(int row, double value, boolean isNull) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+            if (isNull) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    static final class ObjectColumn extends Column {
+
+        private Object[] values = new Object[16];
+
+        @Override
+        Column copy(int[] rows) {
+            ObjectColumn copy = new ObjectColumn();
+            copy.values = new Object[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                copy.values[i] = values[rows[i]];
+            }
+            return copy;
+        }
+
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.xqy.datasource;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * 把 ResultSet 读取为 {@link ColumnarResult}
+ * <p>
+ * 列类型按驱动报告的 getObject 返回类型选择存储，读出的值与 {@code queryForList} 一致。
+ *
+ * @author xqy
+ */
+public class ColumnarResultExtractor implements ResultSetExtractor<ColumnarResult> {
+
+    @Override
+    public ColumnarResult extractData(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        ColumnarResult.Column[] columns = new ColumnarResult.Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+            columns[i] = switch (String.valueOf(metaData.getColumnClassName(i + 1))) {
+                case "java.lang.Long" -> new ColumnarResult.LongColumn();
+                case "java.lang.Integer" -> new ColumnarResult.IntColumn();
+                case "java.lang.Double" -> new ColumnarResult.DoubleColumn();
+                default -> new ColumnarResult.ObjectColumn();
+            };
+        }
+
+        int row = 0;
+        while (rs.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                int index = i + 1;
+                ColumnarResult.Column column = columns[i];
+                if (column instanceof ColumnarResult.LongColumn longColumn) {
+                    long value = rs.getLong(index);
+                    longColumn.set(row, value, rs.wasNull());
+                } else if (column instanceof ColumnarResult.IntColumn intColumn) {
+                    int value = rs.getInt(index);
+                    intColumn.set(row, value, rs.wasNull());
+                } else if (column instanceof ColumnarResult.DoubleColumn doubleColumn) {
+                    double value = rs.getDouble(index);
+                    doubleColumn.set(row, value, rs.wasNull());
+                } else {
+                    ((ColumnarResult.ObjectColumn) column).set(row, JdbcUtils.getResultSetValue(rs, index));
+                }
+            }
+            row++;
+        }
+        for (ColumnarResult.Column column : columns) {
+            column.trim(row);
+        }
+        return new ColumnarResult(columnNames, columns, row);
+    }
+}
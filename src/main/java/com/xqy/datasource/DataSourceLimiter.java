@@ -0,0 +1,395 @@
+package com.xqy.datasource;
+
+import com.xqy.config.QueryServerProperties;
+import com.xqy.dto.DataSourceStatusDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 数据源隔离与熔断
+ * <p>
+ * 每个数据源一个信号量，许可数不超过连接池 maxActive。请求线程先在信号量上排队，
+ * 拿到许可后再取连接，背压由数据源容量而不是线程数决定；排队数超过上限时直接拒绝，
+ * 一个数据源变慢不会占满所有请求线程。
+ * <p>
+ * 熔断按最近 N 次调用的失败率与慢调用率判断，熔断期间快速失败，到期后进入半开状态放行少量探测请求，
+ * 探测全部成功后恢复，否则重新熔断。只有连接失败、超时等数据源故障计为失败，SQL 错误不影响熔断。
+ * <p>
+ * 流式查询在整个导出期间持有连接，耗时取决于客户端读取速度（{@link #stream}）：除占用一个普通许可外，
+ * 还需一个流式许可，同时进行的流式查询不超过许可数的一半，导出过程中子节点的查询仍能获取剩余许可，
+ * 两者合计不超过连接池大小；熔断期间同样拒绝，但不计入熔断统计。
+ *
+ * @author xqy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataSourceLimiter {
+
+    private final QueryServerProperties properties;
+
+    /**
+     * 数据源隔离状态
+     * key: dataSourceId
+     */
+    private final Map<Integer, SourceGuard> guardCache = new ConcurrentHashMap<>();
+
+    /**
+     * 持有数据源许可执行
+     *
+     * @param dataSourceId 数据源ID
+     * @param permits      连接池最大连接数（首次使用时计算）
+     * @param maxWaitMillis 最长等待许可时间（毫秒），与配置的等待时间取较小值
+     * @param call         执行逻辑
+     * @return 执行结果
+     */
+    public <T> T call(Integer dataSourceId, IntSupplier permits, long maxWaitMillis, Supplier<T> call) {
+        SourceGuard guard = guardCache.computeIfAbsent(dataSourceId, id -> new SourceGuard(id, maxConcurrent(permits.getAsInt())));
+        boolean probe = guard.acquire(maxWaitMillis);
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            failed = isSourceFailure(e);
+            throw e;
+        } finally {
+            guard.release(probe, failed, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 持有数据源的流式查询许可执行
+     *
+     * @param dataSourceId 数据源ID
+     * @param permits      连接池最大连接数（首次使用时计算）
+     * @param maxWaitMillis 最长等待许可时间（毫秒），与配置的等待时间取较小值
+     * @param call         执行逻辑
+     * @return 执行结果
+     */
+    public <T> T stream(Integer dataSourceId, IntSupplier permits, long maxWaitMillis, Supplier<T> call) {
+        SourceGuard guard = guardCache.computeIfAbsent(dataSourceId, id -> new SourceGuard(id, maxConcurrent(permits.getAsInt())));
+        guard.acquireStream(maxWaitMillis);
+        try {
+            return call.get();
+        } finally {
+            guard.releaseStream();
+        }
+    }
+
+    /**
+     * 只持有数据源许可执行，不经过熔断判断也不计入熔断统计，用于诊断类的附加查询（如慢查询的执行计划）
+     * 熔断未关闭时不执行，返回 null
+     *
+     * @param dataSourceId 数据源ID
+     * @param permits      连接池最大连接数（首次使用时计算）
+     * @param maxWaitMillis 最长等待许可时间（毫秒），与配置的等待时间取较小值
+     * @param call         执行逻辑
+     * @return 执行结果，熔断未关闭时为 null
+     */
+    public <T> T bulkhead(Integer dataSourceId, IntSupplier permits, long maxWaitMillis, Supplier<T> call) {
+        SourceGuard guard = guardCache.computeIfAbsent(dataSourceId, id -> new SourceGuard(id, maxConcurrent(permits.getAsInt())));
+        if (!guard.isClosed()) {
+            return null;
+        }
+        guard.acquirePermit(maxWaitMillis, false);
+        try {
+            return call.get();
+        } finally {
+            guard.semaphore.release();
+        }
+    }
+
+    /**
+     * 各数据源隔离与熔断状态
+     */
+    public List<DataSourceStatusDto> status() {
+        return guardCache.values().stream()
+                .map(SourceGuard::status)
+                .sorted(Comparator.comparing(DataSourceStatusDto::getDataSourceId))
+                .toList();
+    }
+
+    /**
+     * 移除数据源隔离状态，下次调用时按最新的连接池大小重建；执行中的调用在旧信号量上释放
+     */
+    public void evict(Integer dataSourceId) {
+        guardCache.remove(dataSourceId);
+    }
+
+    private int maxConcurrent(int maxActive) {
+        int configured = properties.getDatasource().getMaxConcurrent();
+        int permits = Math.max(1, maxActive);
+        return configured > 0 ? Math.min(configured, permits) : permits;
+    }
+
+    /**
+     * 是否数据源故障（连接失败、超时等），SQL 本身的错误不计入熔断
+     */
+    private boolean isSourceFailure(Throwable e) {
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof QueryTimeoutException;
+    }
+
+    /**
+     * 熔断状态
+     */
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 单个数据源的隔离舱与熔断器
+     */
+    private final class SourceGuard {
+
+        private final Integer dataSourceId;
+        private final int maxConcurrent;
+        private final Semaphore semaphore;
+        private final Semaphore streamSemaphore;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder rejected = new LongAdder();
+
+        // 以下字段由 synchronized 保护
+        private final byte[] window;
+        private int windowIndex;
+        private int windowCount;
+        private int failures;
+        private int slowCalls;
+        private State state = State.CLOSED;
+        private long retryAt;
+        private int probesInFlight;
+        private int probeSuccesses;
+
+        private SourceGuard(Integer dataSourceId, int maxConcurrent) {
+            this.dataSourceId = dataSourceId;
+            this.maxConcurrent = maxConcurrent;
+            this.semaphore = new Semaphore(maxConcurrent);
+            this.streamSemaphore = new Semaphore(Math.max(1, Math.min(properties.getStreaming().getMaxConcurrentPerSource(),
+                    maxConcurrent / 2)));
+            this.window = new byte[Math.max(1, properties.getDatasource().getCircuitBreaker().getWindowSize())];
+        }
+
+        /**
+         * 获取执行许可
+         *
+         * @param maxWaitMillis 最长等待时间（毫秒）
+         * @return 是否半开状态的探测请求
+         */
+        private boolean acquire(long maxWaitMillis) {
+            boolean probe = tryPass();
+            acquirePermit(maxWaitMillis, probe);
+            return probe;
+        }
+
+        /**
+         * 在信号量上排队获取许可，排队已满或超时时拒绝
+         *
+         * @param probe 是否半开状态的探测请求，拒绝时归还探测名额
+         */
+        private void acquirePermit(long maxWaitMillis, boolean probe) {
+            if (semaphore.tryAcquire()) {
+                return;
+            }
+            if (waiting.incrementAndGet() > properties.getDatasource().getQueueSize()) {
+                waiting.decrementAndGet();
+                reject(probe);
+                throw new RuntimeException("数据源繁忙，排队请求已满: " + dataSourceId);
+            }
+            try {
+                if (!semaphore.tryAcquire(waitMillis(maxWaitMillis), TimeUnit.MILLISECONDS)) {
+                    reject(probe);
+                    throw new RuntimeException("数据源繁忙，等待执行许可超时: " + dataSourceId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reject(probe);
+                throw new RuntimeException("等待数据源许可被中断: " + dataSourceId, e);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        private synchronized boolean isClosed() {
+            return !properties.getDatasource().getCircuitBreaker().isEnabled() || state == State.CLOSED;
+        }
+
+        /**
+         * 获取流式查询许可与一个普通许可：熔断或半开时拒绝，不作为探测请求
+         */
+        private void acquireStream(long maxWaitMillis) {
+            synchronized (this) {
+                if (properties.getDatasource().getCircuitBreaker().isEnabled() && state != State.CLOSED) {
+                    rejected.increment();
+                    throw new RuntimeException("数据源已熔断，暂停流式查询: " + dataSourceId);
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis(maxWaitMillis));
+            try {
+                if (!streamSemaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    rejected.increment();
+                    throw new RuntimeException("数据源繁忙，等待流式查询许可超时: " + dataSourceId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("等待数据源许可被中断: " + dataSourceId, e);
+            }
+            try {
+                if (!semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    streamSemaphore.release();
+                    rejected.increment();
+                    throw new RuntimeException("数据源繁忙，等待执行许可超时: " + dataSourceId);
+                }
+            } catch (InterruptedException e) {
+                streamSemaphore.release();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("等待数据源许可被中断: " + dataSourceId, e);
+            }
+        }
+
+        private void releaseStream() {
+            semaphore.release();
+            streamSemaphore.release();
+        }
+
+        private long waitMillis(long maxWaitMillis) {
+            return Math.max(0, Math.min(properties.getDatasource().getPermitTimeoutMillis(), maxWaitMillis));
+        }
+
+        private void release(boolean probe, boolean failed, long elapsedNanos) {
+            semaphore.release();
+            long slowCallMillis = properties.getDatasource().getCircuitBreaker().getSlowCallMillis();
+            record(probe, failed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos) >= slowCallMillis);
+        }
+
+        private void reject(boolean probe) {
+            rejected.increment();
+            if (probe) {
+                synchronized (this) {
+                    probesInFlight--;
+                }
+            }
+        }
+
+        /**
+         * 熔断判断，熔断中或半开探测名额已满时拒绝
+         */
+        private synchronized boolean tryPass() {
+            if (!properties.getDatasource().getCircuitBreaker().isEnabled()) {
+                return false;
+            }
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() < retryAt) {
+                    rejected.increment();
+                    throw new RuntimeException("数据源已熔断，暂停访问: " + dataSourceId);
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+                probeSuccesses = 0;
+                log.info("数据源熔断到期，放行探测请求: {}", dataSourceId);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight + probeSuccesses >= properties.getDatasource().getCircuitBreaker().getHalfOpenCalls()) {
+                    rejected.increment();
+                    throw new RuntimeException("数据源熔断恢复探测中，暂停访问: " + dataSourceId);
+                }
+                probesInFlight++;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void record(boolean probe, boolean failed, boolean slow) {
+            QueryServerProperties.CircuitBreaker config = properties.getDatasource().getCircuitBreaker();
+            if (!config.isEnabled()) {
+                return;
+            }
+            if (probe) {
+                probesInFlight--;
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (failed || slow) {
+                    open("探测请求失败");
+                } else if (++probeSuccesses >= config.getHalfOpenCalls()) {
+                    reset(State.CLOSED);
+                    log.info("数据源探测成功，熔断恢复: {}", dataSourceId);
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                // 熔断前发出的请求，结果不再计入
+                return;
+            }
+
+            byte outcome = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+            if (windowCount == window.length) {
+                byte evicted = window[windowIndex];
+                failures -= evicted & 1;
+                slowCalls -= (evicted >> 1) & 1;
+            } else {
+                windowCount++;
+            }
+            window[windowIndex] = outcome;
+            windowIndex = (windowIndex + 1) % window.length;
+            failures += outcome & 1;
+            slowCalls += (outcome >> 1) & 1;
+
+            if (windowCount >= Math.min(config.getMinimumCalls(), window.length)) {
+                if (failures * 100 >= config.getFailureRateThreshold() * windowCount) {
+                    open("失败率 " + failures * 100 / windowCount + "%");
+                } else if (slowCalls * 100 >= config.getSlowCallRateThreshold() * windowCount) {
+                    open("慢调用率 " + slowCalls * 100 / windowCount + "%");
+                }
+            }
+        }
+
+        private void open(String reason) {
+            reset(State.OPEN);
+            retryAt = System.currentTimeMillis() + properties.getDatasource().getCircuitBreaker().getOpenMillis();
+            log.warn("数据源熔断: {}，原因: {}", dataSourceId, reason);
+        }
+
+        private void reset(State next) {
+            state = next;
+            windowIndex = 0;
+            windowCount = 0;
+            failures = 0;
+            slowCalls = 0;
+            probeSuccesses = 0;
+        }
+
+        private synchronized DataSourceStatusDto status() {
+            DataSourceStatusDto dto = new DataSourceStatusDto();
+            dto.setDataSourceId(dataSourceId);
+            dto.setState(state.name());
+            dto.setMaxConcurrent(maxConcurrent);
+            dto.setActive(maxConcurrent - semaphore.availablePermits());
+            dto.setWaiting(waiting.get());
+            dto.setCalls(windowCount);
+            dto.setFailureRate(windowCount == 0 ? 0 : failures * 100.0 / windowCount);
+            dto.setSlowCallRate(windowCount == 0 ? 0 : slowCalls * 100.0 / windowCount);
+            dto.setRejected(rejected.sum());
+            dto.setRetryAt(state == State.OPEN ? retryAt : null);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.xqy.datasource;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.xqy.datasource.dialect.SqlDialect;
+import com.xqy.entity.DataSource;
+import com.xqy.trace.ConnectionTimingDataSource;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 托管的动态数据源：连接池、模板、方言与使用状态
+ * <p>
+ * 查询前后通过 {@link #enter()}/{@link #exit()} 登记，替换或淘汰时先停止接收新查询，
+ * 等执行中的查询结束后再关闭连接池。
+ *
+ * @author xqy
+ */
+@Slf4j
+@Getter
+public final class ManagedDataSource {
+
+    private final Integer id;
+    private final DataSource config;
+    private final DruidDataSource pool;
+    private final JdbcTemplate jdbcTemplate;
+    private final CachingNamedParameterJdbcTemplate namedTemplate;
+    private final SqlDialect dialect;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+    private volatile boolean retired;
+
+    /**
+     * 慢查询阈值（毫秒），为空时使用全局配置；连接信息未变更的刷新会直接更新
+     */
+    @Setter
+    private volatile Integer slowQueryMillis;
+
+    public ManagedDataSource(Integer id, DataSource config, DruidDataSource pool, SqlDialect dialect, int sqlCacheLimit) {
+        this.id = id;
+        this.config = config;
+        this.pool = pool;
+        this.dialect = dialect;
+        this.slowQueryMillis = config.getSlowQueryMillis();
+        this.jdbcTemplate = new JdbcTemplate(new ConnectionTimingDataSource(pool));
+        this.namedTemplate = new CachingNamedParameterJdbcTemplate(jdbcTemplate, sqlCacheLimit);
+    }
+
+    /**
+     * 登记一次查询
+     *
+     * @return 数据源已停用时返回 false，调用方需重新获取
+     */
+    public boolean enter() {
+        inFlight.incrementAndGet();
+        if (retired) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        lastUsedMillis = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * 查询结束
+     */
+    public void exit() {
+        lastUsedMillis = System.currentTimeMillis();
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 连接信息是否相同（相同时只需调整连接池参数，不必重建）
+     */
+    public boolean sameConnection(DataSource other) {
+        return Objects.equals(config.getType(), other.getType())
+                && Objects.equals(config.getUrl(), other.getUrl())
+                && Objects.equals(config.getUsername(), other.getUsername())
+                && Objects.equals(config.getPassword(), other.getPassword());
+    }
+
+    /**
+     * 是否空闲超过指定时间
+     */
+    public boolean isIdle(long idleMillis) {
+        return inFlight.get() == 0 && System.currentTimeMillis() - lastUsedMillis >= idleMillis;
+    }
+
+    /**
+     * 停止接收新查询，等待执行中的查询结束（最多 drainTimeoutMillis）后关闭连接池
+     */
+    public void retire(long drainTimeoutMillis) {
+        retired = true;
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (inFlight.get() > 0) {
+            log.warn("数据源仍有 {} 个查询未结束，强制关闭: {}", inFlight.get(), config.getName());
+        }
+        try {
+            pool.close();
+        } catch (Exception e) {
+            log.warn("关闭数据源时异常: {}", config.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.xqy.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.dto.SlowQueryDto;
+import com.xqy.util.SqlUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * 慢查询记录
+ * <p>
+ * 超过阈值的语句写入固定大小的环形缓冲区，只保留SQL、参数名与类型，不保留参数值；查询时按数据源与SQL指纹汇总。
+ * 开启 EXPLAIN 时由后台单线程在原数据源上执行方言对应的执行计划语句，同一数据源的同一SQL只执行一次，
+ * 执行计划最多缓存 {@value #MAX_EXPLAINS} 条，超出时淘汰最少使用的；排队已满时直接丢弃，不影响请求线程。
+ *
+ * @author xqy
+ */
+@Slf4j
+@Component
+public class SlowQueryLog {
+
+    /**
+     * 最多缓存的执行计划数
+     */
+    private static final int MAX_EXPLAINS = 1000;
+
+    /**
+     * 执行计划排队上限
+     */
+    private static final int EXPLAIN_QUEUE_SIZE = 100;
+
+    /**
+     * 执行计划尚未完成的占位
+     */
+    private static final String PENDING = "";
+
+    private final QueryServerProperties properties;
+    private final AtomicReferenceArray<Entry> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 执行计划缓存
+     * key: dataSourceId:fingerprint
+     */
+    private final Cache<String, String> explains = Caffeine.newBuilder()
+            .maximumSize(MAX_EXPLAINS)
+            .build();
+
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryLog(QueryServerProperties properties) {
+        this.properties = properties;
+        this.buffer = new AtomicReferenceArray<>(Math.max(1, properties.getSlowQuery().getBufferSize()));
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 记录一次慢查询
+     *
+     * @param explainer 执行计划查询，方言不支持时为 null
+     */
+    public void record(Integer dataSourceId, String api, Long nodeId, String operation, String sql, String paramShape,
+                       long elapsedMillis, long rows, boolean failed, Supplier<String> explainer) {
+        String fingerprint = SqlUtils.fingerprint(sql);
+        Entry entry = new Entry(dataSourceId, api, nodeId, operation, fingerprint, sql, paramShape, elapsedMillis,
+                rows, failed, System.currentTimeMillis());
+        buffer.set((int) (sequence.getAndIncrement() % buffer.length()), entry);
+        log.warn("慢查询 dataSourceId: {}, api: {}, nodeId: {}, fingerprint: {}, 耗时: {}ms, 行数: {}, 失败: {}",
+                dataSourceId, api, nodeId, fingerprint, elapsedMillis, rows, failed);
+
+        if (explainer != null && properties.getSlowQuery().isExplainEnabled()) {
+            explain(dataSourceId + ":" + fingerprint, explainer);
+        }
+    }
+
+    private void explain(String key, Supplier<String> explainer) {
+        if (explains.asMap().putIfAbsent(key, PENDING) != null) {
+            return;
+        }
+        try {
+            explainExecutor.execute(() -> {
+                try {
+                    String plan = explainer.get();
+                    if (plan == null) {
+                        // 数据源熔断中或恰好被替换，释放占位，下次慢查询再尝试
+                        explains.asMap().remove(key, PENDING);
+                    } else {
+                        explains.put(key, plan);
+                    }
+                } catch (Exception e) {
+                    log.debug("执行计划查询失败: {}", key, e);
+                    explains.put(key, "EXPLAIN失败: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 队列已满时丢弃并释放占位，下次慢查询再尝试
+            explains.asMap().remove(key, PENDING);
+        }
+    }
+
+    /**
+     * 按数据源与SQL指纹汇总，按累计耗时倒序
+     *
+     * @param dataSourceId 数据源ID，为空时返回全部数据源
+     * @param top          返回条数
+     */
+    public List<SlowQueryDto> top(Integer dataSourceId, int top) {
+        Map<String, SlowQueryDto> groups = new LinkedHashMap<>();
+        for (int i = 0; i < buffer.length(); i++) {
+            Entry entry = buffer.get(i);
+            if (entry == null || (dataSourceId != null && !dataSourceId.equals(entry.dataSourceId()))) {
+                continue;
+            }
+            String key = entry.dataSourceId() + ":" + entry.fingerprint();
+            SlowQueryDto dto = groups.computeIfAbsent(key, k -> {
+                SlowQueryDto created = new SlowQueryDto();
+                created.setDataSourceId(entry.dataSourceId());
+                created.setFingerprint(entry.fingerprint());
+                created.setSql(entry.sql());
+                created.setOperation(entry.operation());
+                created.setCount(0);
+                created.setFailures(0);
+                created.setTotalMillis(0L);
+                created.setMaxMillis(-1L);
+                created.setMaxRows(0L);
+                created.setExplain(explains.getIfPresent(k));
+                return created;
+            });
+            dto.setCount(dto.getCount() + 1);
+            dto.setFailures(dto.getFailures() + (entry.failed() ? 1 : 0));
+            dto.setTotalMillis(dto.getTotalMillis() + entry.elapsedMillis());
+            dto.setMaxRows(Math.max(dto.getMaxRows(), entry.rows()));
+            if (entry.elapsedMillis() > dto.getMaxMillis()) {
+                dto.setMaxMillis(entry.elapsedMillis());
+                dto.setApi(entry.api());
+                dto.setNodeId(entry.nodeId());
+                dto.setParamShape(entry.paramShape());
+            }
+            LocalDateTime seen = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.timestamp()), ZoneId.systemDefault());
+            if (dto.getLastSeen() == null || seen.isAfter(dto.getLastSeen())) {
+                dto.setLastSeen(seen);
+            }
+        }
+        return groups.values().stream()
+                .peek(dto -> {
+                    dto.setAvgMillis(dto.getTotalMillis() / dto.getCount());
+                    if (PENDING.equals(dto.getExplain())) {
+                        dto.setExplain(null);
+                    }
+                })
+                .sorted(Comparator.comparing(SlowQueryDto::getTotalMillis).reversed())
+                .limit(Math.max(0, top))
+                .toList();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * 一次慢查询
+     */
+    private record Entry(Integer dataSourceId, String api, Long nodeId, String operation, String fingerprint,
+                         String sql, String paramShape, long elapsedMillis, long rows, boolean failed, long timestamp) {
+    }
+}
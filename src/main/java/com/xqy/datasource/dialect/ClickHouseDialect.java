@@ -0,0 +1,32 @@
+package com.xqy.datasource.dialect;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * ClickHouse 方言
+ *
+ * @author xqy
+ */
+@Component
+public class ClickHouseDialect implements SqlDialect {
+
+    @Override
+    public String type() {
+        return "clickhouse";
+    }
+
+    @Override
+    public String driverClassName() {
+        return "com.clickhouse.jdbc.ClickHouseDriver";
+    }
+
+    @Override
+    public String pageSql(String sql) {
+        return sql + " LIMIT :" + OFFSET_PARAM + ", :" + LIMIT_PARAM;
+    }
+
+    @Override
+    public String limitSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM;
+    }
+}
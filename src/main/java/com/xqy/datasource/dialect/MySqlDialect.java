@@ -0,0 +1,40 @@
+package com.xqy.datasource.dialect;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * MySQL 方言
+ *
+ * @author xqy
+ */
+@Component
+public class MySqlDialect implements SqlDialect {
+
+    @Override
+    public String type() {
+        return "mysql";
+    }
+
+    @Override
+    public String driverClassName() {
+        return "com.mysql.cj.jdbc.Driver";
+    }
+
+    @Override
+    public String pageSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM + " OFFSET :" + OFFSET_PARAM;
+    }
+
+    @Override
+    public String limitSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM;
+    }
+
+    /**
+     * 驱动只有开启 useCursorFetch 时才按 fetchSize 分批，否则需 Integer.MIN_VALUE 逐行流式读取
+     */
+    @Override
+    public int streamingFetchSize(String url, int fetchSize) {
+        return url != null && url.contains("useCursorFetch=true") ? fetchSize : Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,49 @@
+package com.xqy.datasource.dialect;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Oracle 方言
+ * <p>
+ * 分页统一使用 12c 起支持的 OFFSET ... FETCH（偏移量是绑定参数，生成SQL时无法区分首页），
+ * 避免 ROWNUM 嵌套分页在结果中多出行号列；只取前 N 行（如游标分页）时用 ROWNUM 截断，
+ * 优化器可按 first rows 选择执行计划。
+ *
+ * @author xqy
+ */
+@Component
+public class OracleDialect implements SqlDialect {
+
+    @Override
+    public String type() {
+        return "oracle";
+    }
+
+    @Override
+    public String driverClassName() {
+        return "oracle.jdbc.OracleDriver";
+    }
+
+    @Override
+    public String validationQuery() {
+        return "SELECT 1 FROM DUAL";
+    }
+
+    @Override
+    public String pageSql(String sql) {
+        return sql + " OFFSET :" + OFFSET_PARAM + " ROWS FETCH NEXT :" + LIMIT_PARAM + " ROWS ONLY";
+    }
+
+    @Override
+    public String limitSql(String sql) {
+        return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= :" + LIMIT_PARAM;
+    }
+
+    /**
+     * EXPLAIN PLAN 只写入计划表，不返回结果集
+     */
+    @Override
+    public String explainSql(String sql) {
+        return null;
+    }
+}
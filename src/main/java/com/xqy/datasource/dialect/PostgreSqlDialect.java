@@ -0,0 +1,32 @@
+package com.xqy.datasource.dialect;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * PostgreSQL 方言
+ *
+ * @author xqy
+ */
+@Component
+public class PostgreSqlDialect implements SqlDialect {
+
+    @Override
+    public String type() {
+        return "postgresql";
+    }
+
+    @Override
+    public String driverClassName() {
+        return "org.postgresql.Driver";
+    }
+
+    @Override
+    public String pageSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM + " OFFSET :" + OFFSET_PARAM;
+    }
+
+    @Override
+    public String limitSql(String sql) {
+        return sql + " LIMIT :" + LIMIT_PARAM;
+    }
+}
@@ -0,0 +1,75 @@
+package com.xqy.datasource.dialect;
+
+import com.xqy.util.SqlUtils;
+
+/**
+ * 数据库方言
+ * <p>
+ * 生成各数据库原生的分页与统计SQL。分页的偏移量与行数以命名参数绑定，
+ * 不同页码共用同一条SQL，可以命中解析缓存与预编译语句缓存。
+ *
+ * @author xqy
+ */
+public interface SqlDialect {
+
+    /**
+     * 分页偏移量参数名
+     */
+    String OFFSET_PARAM = "page_offset";
+
+    /**
+     * 分页行数参数名
+     */
+    String LIMIT_PARAM = "page_limit";
+
+    /**
+     * 数据源类型（对应 data_source.type）
+     */
+    String type();
+
+    /**
+     * JDBC 驱动类名
+     */
+    String driverClassName();
+
+    /**
+     * 连接校验SQL
+     */
+    default String validationQuery() {
+        return "SELECT 1";
+    }
+
+    /**
+     * 分页SQL，绑定 {@link #OFFSET_PARAM} 与 {@link #LIMIT_PARAM}
+     */
+    String pageSql(String sql);
+
+    /**
+     * 只限制行数的SQL，绑定 {@link #LIMIT_PARAM}
+     */
+    String limitSql(String sql);
+
+    /**
+     * 统计总数SQL，去掉子查询中不影响结果的 ORDER BY
+     */
+    default String countSql(String sql) {
+        return "SELECT COUNT(*) FROM (" + SqlUtils.stripOrderBy(sql) + ") temp_count";
+    }
+
+    /**
+     * 流式读取的 fetchSize
+     *
+     * @param url       连接URL
+     * @param fetchSize 配置的 fetchSize
+     */
+    default int streamingFetchSize(String url, int fetchSize) {
+        return fetchSize;
+    }
+
+    /**
+     * 查看执行计划的SQL，返回结果集；不支持时返回 null
+     */
+    default String explainSql(String sql) {
+        return "EXPLAIN " + sql;
+    }
+}
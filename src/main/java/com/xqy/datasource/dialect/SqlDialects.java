@@ -0,0 +1,37 @@
+package com.xqy.datasource.dialect;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 数据库方言注册表，按 data_source.type 查找方言
+ *
+ * @author xqy
+ */
+@Component
+public class SqlDialects {
+
+    private final Map<String, SqlDialect> dialects;
+
+    public SqlDialects(List<SqlDialect> dialects) {
+        this.dialects = dialects.stream().collect(Collectors.toUnmodifiableMap(SqlDialect::type, Function.identity()));
+    }
+
+    /**
+     * 获取数据源类型对应的方言
+     *
+     * @param type 数据源类型
+     * @return 方言
+     */
+    public SqlDialect forType(String type) {
+        SqlDialect dialect = type == null ? null : dialects.get(type.toLowerCase());
+        if (dialect == null) {
+            throw new IllegalArgumentException("不支持的数据库类型: " + type);
+        }
+        return dialect;
+    }
+}
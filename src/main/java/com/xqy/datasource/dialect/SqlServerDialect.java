@@ -0,0 +1,47 @@
+package com.xqy.datasource.dialect;
+
+import com.xqy.util.SqlUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * SQL Server 方言
+ * <p>
+ * OFFSET ... FETCH 必须跟在 ORDER BY 之后，SQL 本身没有排序时补 ORDER BY (SELECT NULL)。
+ *
+ * @author xqy
+ */
+@Component
+public class SqlServerDialect implements SqlDialect {
+
+    @Override
+    public String type() {
+        return "sqlserver";
+    }
+
+    @Override
+    public String driverClassName() {
+        return "com.microsoft.sqlserver.jdbc.SQLServerDriver";
+    }
+
+    @Override
+    public String pageSql(String sql) {
+        return ordered(sql) + " OFFSET :" + OFFSET_PARAM + " ROWS FETCH NEXT :" + LIMIT_PARAM + " ROWS ONLY";
+    }
+
+    @Override
+    public String limitSql(String sql) {
+        return ordered(sql) + " OFFSET 0 ROWS FETCH NEXT :" + LIMIT_PARAM + " ROWS ONLY";
+    }
+
+    /**
+     * 执行计划需要会话级 SET SHOWPLAN，不在共享连接上切换
+     */
+    @Override
+    public String explainSql(String sql) {
+        return null;
+    }
+
+    private String ordered(String sql) {
+        return SqlUtils.hasOrderBy(sql) ? sql : sql + " ORDER BY (SELECT NULL)";
+    }
+}
@@ -0,0 +1,66 @@
+package com.xqy.dto;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 数据源隔离与熔断状态DTO
+ */
+@Data
+public class DataSourceStatusDto implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 数据源ID
+     */
+    private Integer dataSourceId;
+
+    /**
+     * 熔断状态 (CLOSED/OPEN/HALF_OPEN)
+     */
+    private String state;
+
+    /**
+     * 最大并发查询数
+     */
+    private Integer maxConcurrent;
+
+    /**
+     * 执行中的查询数
+     */
+    private Integer active;
+
+    /**
+     * 排队等待的请求数
+     */
+    private Integer waiting;
+
+    /**
+     * 统计窗口内调用次数
+     */
+    private Integer calls;
+
+    /**
+     * 失败率（百分比）
+     */
+    private Double failureRate;
+
+    /**
+     * 慢调用率（百分比）
+     */
+    private Double slowCallRate;
+
+    /**
+     * 被拒绝的请求数（排队满或熔断）
+     */
+    private Long rejected;
+
+    /**
+     * 熔断恢复探测时间（毫秒时间戳），未熔断时为空
+     */
+    private Long retryAt;
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -60,6 +61,21 @@ public class QueryNodeTreeDto implements Serializable {
      */
     private String nodeDescription;
 
+    /**
+     * 跨请求结果缓存时间（秒），为空或不大于0时不缓存
+     */
+    private Integer cacheTtlSeconds;
+
+    /**
+     * 是否以列式结构保存结果（仅无子节点的多行节点生效）
+     */
+    private Boolean columnar;
+
+    /**
+     * 语句超时时间（秒），为空或不大于0时只受API超时限制
+     */
+    private Integer queryTimeoutSeconds;
+
     /**
      * 父节点ID
      */
@@ -89,4 +105,10 @@ public class QueryNodeTreeDto implements Serializable {
      * 节点层级（从0开始）
      */
     private Integer level;
+
+    /**
+     * 更新时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime updateTime;
 }
\ No newline at end of file
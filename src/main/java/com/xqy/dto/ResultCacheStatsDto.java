@@ -0,0 +1,46 @@
+package com.xqy.dto;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * API结果缓存统计DTO
+ */
+@Data
+public class ResultCacheStatsDto implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存条数
+     */
+    private Long size;
+
+    /**
+     * 估算占用内存（字节）
+     */
+    private Long weight;
+
+    /**
+     * 命中次数
+     */
+    private Long hits;
+
+    /**
+     * 未命中次数
+     */
+    private Long misses;
+
+    /**
+     * 命中率
+     */
+    private Double hitRate;
+
+    /**
+     * 淘汰次数
+     */
+    private Long evictions;
+}
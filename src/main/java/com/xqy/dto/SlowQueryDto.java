@@ -0,0 +1,95 @@
+package com.xqy.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 慢查询汇总DTO（按数据源与SQL指纹汇总）
+ */
+@Data
+public class SlowQueryDto implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 数据源ID
+     */
+    private Integer dataSourceId;
+
+    /**
+     * SQL指纹
+     */
+    private String fingerprint;
+
+    /**
+     * SQL内容
+     */
+    private String sql;
+
+    /**
+     * 调用方式：list/map/object/columnar
+     */
+    private String operation;
+
+    /**
+     * 最慢一次所属的API路径
+     */
+    private String api;
+
+    /**
+     * 最慢一次所属的节点ID
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long nodeId;
+
+    /**
+     * 最慢一次的参数形态（参数名与类型，不含参数值）
+     */
+    private String paramShape;
+
+    /**
+     * 记录次数
+     */
+    private Integer count;
+
+    /**
+     * 失败次数（含超时）
+     */
+    private Integer failures;
+
+    /**
+     * 累计耗时（毫秒）
+     */
+    private Long totalMillis;
+
+    /**
+     * 最大耗时（毫秒）
+     */
+    private Long maxMillis;
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    private Long avgMillis;
+
+    /**
+     * 最大返回行数
+     */
+    private Long maxRows;
+
+    /**
+     * 最近一次记录时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime lastSeen;
+
+    /**
+     * 执行计划，未开启或尚未完成时为空
+     */
+    private String explain;
+}
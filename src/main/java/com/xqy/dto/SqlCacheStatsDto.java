@@ -0,0 +1,41 @@
+package com.xqy.dto;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * SQL解析缓存统计DTO
+ */
+@Data
+public class SqlCacheStatsDto implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 数据源ID
+     */
+    private Integer dataSourceId;
+
+    /**
+     * 当前缓存条数
+     */
+    private Integer size;
+
+    /**
+     * 缓存容量
+     */
+    private Integer capacity;
+
+    /**
+     * 命中次数
+     */
+    private Long hits;
+
+    /**
+     * 未命中次数
+     */
+    private Long misses;
+}
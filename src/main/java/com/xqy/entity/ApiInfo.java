@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.xqy.enums.ApiType;
+import com.xqy.enums.CountStrategy;
+import com.xqy.enums.PageMode;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -64,4 +66,39 @@ public class ApiInfo extends BaseEntity {
      * API描述
      */
     private String apiDescription;
+
+    /**
+     * 结果缓存时间（秒），为空或不大于0时不缓存
+     */
+    private Integer cacheTtlSeconds;
+
+    /**
+     * 是否流式输出（仅列表API），开启后结果边查询边写出，不经过结果缓存
+     */
+    private Boolean streaming;
+
+    /**
+     * 分页模式（仅分页API），为空时按页码分页
+     */
+    private PageMode pageMode;
+
+    /**
+     * 游标分页排序列，如 "create_time desc, id desc"，最后一列需唯一；排序列为 NULL 的行不会返回
+     */
+    private String keysetColumns;
+
+    /**
+     * 分页总数统计策略（仅页码分页），为空时每次统计
+     */
+    private CountStrategy countStrategy;
+
+    /**
+     * 缓存统计策略的总数缓存时间（秒），为空时使用默认配置
+     */
+    private Integer countCacheTtlSeconds;
+
+    /**
+     * 请求执行超时时间（毫秒），覆盖所有节点查询，为空或不大于0时不限制
+     */
+    private Integer timeoutMillis;
 }
@@ -61,4 +61,34 @@ public class DataSource extends BaseEntity {
      * 描述
      */
     private String description;
+
+    /**
+     * 初始连接数，为空时使用默认配置
+     */
+    private Integer initialSize;
+
+    /**
+     * 最小空闲连接数，为空时使用默认配置
+     */
+    private Integer minIdle;
+
+    /**
+     * 最大连接数，为空时使用默认配置
+     */
+    private Integer maxActive;
+
+    /**
+     * 获取连接最大等待时间（毫秒），为空时使用默认配置
+     */
+    private Integer maxWait;
+
+    /**
+     * 每个连接缓存的预编译语句数，为空时使用默认配置，0 表示不缓存
+     */
+    private Integer psCacheSize;
+
+    /**
+     * 慢查询阈值（毫秒），为空时使用默认配置，0 表示不记录
+     */
+    private Integer slowQueryMillis;
 }
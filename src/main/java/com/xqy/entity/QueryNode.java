@@ -80,4 +80,19 @@ public class QueryNode extends BaseEntity {
      * 节点描述
      */
     private String nodeDescription;
+
+    /**
+     * 跨请求结果缓存时间（秒），为空或不大于0时不缓存
+     */
+    private Integer cacheTtlSeconds;
+
+    /**
+     * 是否以列式结构保存结果（仅无子节点的多行节点生效）
+     */
+    private Boolean columnar;
+
+    /**
+     * 语句超时时间（秒），为空或不大于0时只受API超时限制
+     */
+    private Integer queryTimeoutSeconds;
 }
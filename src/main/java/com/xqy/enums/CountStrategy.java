@@ -0,0 +1,47 @@
+package com.xqy.enums;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import lombok.Getter;
+
+/**
+ * 分页总数统计策略枚举
+ */
+@Getter
+public enum CountStrategy {
+
+    /**
+     * 每次请求先统计总数再查询数据
+     */
+    ALWAYS("ALWAYS", "每次统计"),
+
+    /**
+     * 不统计总数，多取一行判断是否有下一页
+     */
+    NONE("NONE", "不统计"),
+
+    /**
+     * 按过滤参数缓存总数，翻页时复用
+     */
+    CACHED("CACHED", "缓存统计"),
+
+    /**
+     * 总数与数据并行查询
+     */
+    PARALLEL("PARALLEL", "并行统计");
+
+    /**
+     * 策略值
+     */
+    @EnumValue
+    private final String value;
+
+    /**
+     * 描述
+     */
+    private final String description;
+
+    CountStrategy(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,37 @@
+package com.xqy.enums;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import lombok.Getter;
+
+/**
+ * 分页模式枚举
+ */
+@Getter
+public enum PageMode {
+
+    /**
+     * 页码分页（LIMIT/OFFSET）
+     */
+    OFFSET("OFFSET", "页码分页"),
+
+    /**
+     * 游标分页（按排序列定位，深翻页不扫描丢弃行）
+     */
+    KEYSET("KEYSET", "游标分页");
+
+    /**
+     * 模式值
+     */
+    @EnumValue
+    private final String value;
+
+    /**
+     * 描述
+     */
+    private final String description;
+
+    PageMode(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,145 @@
+package com.xqy.metrics;
+
+import com.xqy.plan.PlanNode;
+import com.xqy.service.impl.handler.QueryDeadline;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 查询指标：API、处理器、节点与数据源的耗时（带百分位直方图）和行数分布
+ * <ul>
+ *     <li>query.api：API请求总耗时（含结果缓存），标签 api/method/outcome</li>
+ *     <li>query.handler：处理器执行耗时（结果缓存未命中时），标签 api/type/outcome</li>
+ *     <li>query.node：子节点执行耗时，标签 node/datasource/outcome；query.node.rows：子节点返回行数</li>
+ *     <li>query.datasource：数据源调用耗时（含排队），标签 datasource/operation/outcome；query.datasource.rows：返回行数</li>
+ *     <li>query.datasource.permit.wait：等待数据源隔离许可的时间</li>
+ * </ul>
+ *
+ * @author xqy
+ */
+@Component
+public class QueryMetrics {
+
+    private final MeterRegistry registry;
+    private final Meter.MeterProvider<Timer> apiTimer;
+    private final Meter.MeterProvider<Timer> handlerTimer;
+    private final Meter.MeterProvider<Timer> nodeTimer;
+    private final Meter.MeterProvider<DistributionSummary> nodeRows;
+    private final Meter.MeterProvider<Timer> dataSourceTimer;
+    private final Meter.MeterProvider<DistributionSummary> dataSourceRows;
+    private final Meter.MeterProvider<Timer> permitWaitTimer;
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.apiTimer = timer("query.api", "API请求耗时");
+        this.handlerTimer = timer("query.handler", "API处理器执行耗时");
+        this.nodeTimer = timer("query.node", "子节点执行耗时");
+        this.nodeRows = rows("query.node.rows", "子节点返回行数");
+        this.dataSourceTimer = timer("query.datasource", "数据源调用耗时");
+        this.dataSourceRows = rows("query.datasource.rows", "数据源调用返回行数");
+        this.permitWaitTimer = timer("query.datasource.permit.wait", "等待数据源隔离许可的时间");
+    }
+
+    /**
+     * 记录API请求
+     */
+    public <T> T recordApi(String apiPath, String method, Supplier<T> call) {
+        return record(call, outcome -> apiTimer.withTags("api", apiPath, "method", method, "outcome", outcome));
+    }
+
+    /**
+     * 记录处理器执行
+     */
+    public <T> T recordHandler(String apiPath, String apiType, Supplier<T> call) {
+        return record(call, outcome -> handlerTimer.withTags("api", apiPath, "type", apiType, "outcome", outcome));
+    }
+
+    /**
+     * 记录子节点执行
+     */
+    public <T> T recordNode(PlanNode node, Supplier<T> call) {
+        String nodeId = String.valueOf(node.getId());
+        String dataSourceId = String.valueOf(node.getDataSourceId());
+        return record(call, outcome -> nodeTimer.withTags("node", nodeId, "datasource", dataSourceId, "outcome", outcome));
+    }
+
+    /**
+     * 记录子节点返回行数
+     */
+    public void recordNodeRows(PlanNode node, long rows) {
+        nodeRows.withTags("node", String.valueOf(node.getId())).record(rows);
+    }
+
+    /**
+     * 记录数据源调用，返回集合时同时记录行数
+     */
+    public <T> T recordDataSource(Integer dataSourceId, String operation, Supplier<T> call) {
+        String id = String.valueOf(dataSourceId);
+        T result = record(call, outcome -> dataSourceTimer.withTags("datasource", id, "operation", operation, "outcome", outcome));
+        if (result instanceof Collection<?> rows) {
+            dataSourceRows.withTags("datasource", id, "operation", operation).record(rows.size());
+        } else if (result instanceof Map<?, ?>) {
+            dataSourceRows.withTags("datasource", id, "operation", operation).record(1);
+        }
+        return result;
+    }
+
+    /**
+     * 记录等待数据源隔离许可的时间
+     */
+    public void recordPermitWait(Integer dataSourceId, long nanos) {
+        permitWaitTimer.withTags("datasource", String.valueOf(dataSourceId)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 注册数据源级别的指标（如连接池状态），取值函数返回 NaN 表示当前无数据
+     */
+    public <T> void gauge(String name, String description, Integer dataSourceId, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value)
+                .description(description)
+                .tags(Tags.of("datasource", String.valueOf(dataSourceId)))
+                .register(registry);
+    }
+
+    private <T> T record(Supplier<T> call, Function<String, Timer> timer) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            outcome = QueryDeadline.isTimeout(e) ? "timeout" : "error";
+            throw e;
+        } finally {
+            timer.apply(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meter.MeterProvider<Timer> timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+    }
+
+    private Meter.MeterProvider<DistributionSummary> rows(String name, String description) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("rows")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+    }
+}
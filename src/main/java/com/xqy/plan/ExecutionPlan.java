@@ -0,0 +1,17 @@
+package com.xqy.plan;
+
+import com.xqy.entity.ApiInfo;
+
+import java.util.List;
+
+/**
+ * API执行计划（不可变）
+ *
+ * @param apiInfo       API信息
+ * @param root          根节点
+ * @param nodes         所有节点（先序展开）
+ * @param keysetColumns 游标分页排序列，非游标分页时为空
+ * @author xqy
+ */
+public record ExecutionPlan(ApiInfo apiInfo, PlanNode root, List<PlanNode> nodes, List<KeysetColumn> keysetColumns) {
+}
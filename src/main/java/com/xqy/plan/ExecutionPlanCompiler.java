@@ -0,0 +1,105 @@
+package com.xqy.plan;
+
+import com.xqy.dto.QueryNodeTreeDto;
+import com.xqy.entity.ApiInfo;
+import com.xqy.enums.ApiType;
+import com.xqy.enums.PageMode;
+import com.xqy.enums.RelationType;
+import com.xqy.util.SqlUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 执行计划编译器：把查询节点树编译为不可变的 {@link ExecutionPlan}
+ *
+ * @author xqy
+ */
+@Component
+public class ExecutionPlanCompiler {
+
+    /**
+     * 编译API执行计划
+     *
+     * @param apiInfo API信息
+     * @param tree    查询节点树
+     * @return 执行计划
+     */
+    public ExecutionPlan compile(ApiInfo apiInfo, QueryNodeTreeDto tree) {
+        if (tree == null) {
+            throw new IllegalArgumentException("根查询节点不存在或节点树存在循环引用: " + apiInfo.getRootQueryNodeId());
+        }
+        PlanNode root = compileNode(tree, true);
+        List<PlanNode> nodes = new ArrayList<>();
+        flatten(root, nodes);
+        List<KeysetColumn> keysetColumns = apiInfo.getApiType() == ApiType.PAGE && apiInfo.getPageMode() == PageMode.KEYSET
+                ? KeysetColumn.parse(apiInfo.getKeysetColumns())
+                : List.of();
+        return new ExecutionPlan(apiInfo, root, List.copyOf(nodes), keysetColumns);
+    }
+
+    private PlanNode compileNode(QueryNodeTreeDto node, boolean isRoot) {
+        String sql = node.getSqlContent();
+        List<String> paramNames = SqlUtils.parseParameterNames(sql);
+        if (paramNames.isEmpty()) {
+            throw new IllegalArgumentException("SQL必须使用命名参数形式（如 :userId, :status），节点: " + node.getNodeName());
+        }
+
+        ResultShape shape = ResultShape.of(node.getQueryNodeType());
+        List<PlanNode> children = new ArrayList<>();
+        if (Boolean.TRUE.equals(node.getHasChildren()) && node.getChildrenList() != null) {
+            for (QueryNodeTreeDto child : node.getChildrenList()) {
+                children.add(compileNode(child, false));
+            }
+        }
+
+        return new PlanNode(node.getId(), node.getNodeName(), node.getQueryNodeType(), node.getDataSourceId(), sql,
+                List.copyOf(paramNames), Map.copyOf(SqlUtils.batchKeyColumns(sql)), SqlUtils.hasRowLimit(sql), node.getBindingName(),
+                node.getCacheTtlSeconds() == null ? 0 : Math.max(0, node.getCacheTtlSeconds()),
+                Boolean.TRUE.equals(node.getColumnar()) && children.isEmpty() && (isRoot || shape == ResultShape.ROWS),
+                node.getQueryTimeoutSeconds() == null ? 0 : Math.max(0, node.getQueryTimeoutSeconds()),
+                shape,
+                isRoot ? null : ResultBinding.of(node.getRelationType() == null ? RelationType.CHILD : node.getRelationType()),
+                List.copyOf(children), waves(children));
+    }
+
+    /**
+     * 把子节点划分为可并行的批次
+     * <p>
+     * 兄弟关系会把整行合并进父行，之后的节点可能引用其中任意列，因此作为批次边界；
+     * 引用了同批次前序节点 bindingName 的节点也另起一批。
+     */
+    private List<List<PlanNode>> waves(List<PlanNode> children) {
+        List<List<PlanNode>> waves = new ArrayList<>();
+        List<PlanNode> current = new ArrayList<>();
+        Set<String> produced = new HashSet<>();
+        boolean barrier = false;
+        for (PlanNode child : children) {
+            if (!current.isEmpty() && (barrier || child.getParamNames().stream().anyMatch(produced::contains))) {
+                waves.add(List.copyOf(current));
+                current = new ArrayList<>();
+                produced.clear();
+                barrier = false;
+            }
+            current.add(child);
+            if (child.getBinding() == ResultBinding.SIBLING) {
+                barrier = true;
+            } else {
+                produced.add(child.getBindingName());
+            }
+        }
+        if (!current.isEmpty()) {
+            waves.add(List.copyOf(current));
+        }
+        return List.copyOf(waves);
+    }
+
+    private void flatten(PlanNode node, List<PlanNode> nodes) {
+        nodes.add(node);
+        node.getChildren().forEach(child -> flatten(child, nodes));
+    }
+}
@@ -0,0 +1,49 @@
+package com.xqy.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 游标分页排序列
+ *
+ * @param name       结果列名
+ * @param descending 是否降序
+ * @author xqy
+ */
+public record KeysetColumn(String name, boolean descending) {
+
+    /**
+     * 列名会拼接进SQL，只允许标识符
+     */
+    private static final Pattern COLUMN_PATTERN = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    /**
+     * 解析排序列配置，如 "create_time desc, id desc"
+     *
+     * @param spec 排序列配置
+     * @return 排序列
+     */
+    public static List<KeysetColumn> parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            throw new IllegalArgumentException("游标分页必须配置排序列");
+        }
+        List<KeysetColumn> columns = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            String[] parts = item.trim().split("\\s+");
+            if (parts.length > 2 || !COLUMN_PATTERN.matcher(parts[0]).matches()) {
+                throw new IllegalArgumentException("非法的游标分页排序列: " + item.trim());
+            }
+            boolean descending = false;
+            if (parts.length == 2) {
+                if (parts[1].equalsIgnoreCase("desc")) {
+                    descending = true;
+                } else if (!parts[1].equalsIgnoreCase("asc")) {
+                    throw new IllegalArgumentException("非法的游标分页排序方向: " + item.trim());
+                }
+            }
+            columns.add(new KeysetColumn(parts[0], descending));
+        }
+        return List.copyOf(columns);
+    }
+}
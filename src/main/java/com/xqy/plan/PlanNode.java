@@ -0,0 +1,166 @@
+package com.xqy.plan;
+
+import com.xqy.enums.QueryNodeType;
+import com.xqy.util.SqlUtils;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 执行计划节点（不可变）
+ * <p>
+ * 由 {@link ExecutionPlanCompiler} 在加载API时生成：参数名、可批量改写的参数、整形/回填策略和并行批次都已预先算好，
+ * 请求时只需按计划执行。
+ *
+ * @author xqy
+ */
+@Getter
+public final class PlanNode {
+
+    /**
+     * 节点ID
+     */
+    private final Long id;
+
+    /**
+     * 节点名称
+     */
+    private final String nodeName;
+
+    /**
+     * 节点类型
+     */
+    private final QueryNodeType queryNodeType;
+
+    /**
+     * 关联数据源ID
+     */
+    private final Integer dataSourceId;
+
+    /**
+     * SQL内容
+     */
+    private final String sql;
+
+    /**
+     * SQL中的命名参数（按出现顺序）
+     */
+    private final List<String> paramNames;
+
+    /**
+     * 可改写为 IN 批量查询的参数及其过滤列，见 {@link SqlUtils#batchKeyColumns(String)}
+     */
+    private final Map<String, String> batchKeyColumns;
+
+    /**
+     * SQL是否带有限制行数的子句（带则不能批量改写）
+     */
+    private final boolean rowLimited;
+
+    /**
+     * 绑定名称
+     */
+    private final String bindingName;
+
+    /**
+     * 跨请求结果缓存时间（秒），0 表示不缓存
+     */
+    private final int cacheTtlSeconds;
+
+    /**
+     * 是否以列式结构查询结果（节点无子节点时才可能为 true）
+     */
+    private final boolean columnar;
+
+    /**
+     * 语句超时时间（秒），0 表示只受API超时限制
+     */
+    private final int queryTimeoutSeconds;
+
+    /**
+     * 结果整形策略
+     */
+    private final ResultShape shape;
+
+    /**
+     * 结果回填策略（根节点为 null）
+     */
+    private final ResultBinding binding;
+
+    /**
+     * 子节点
+     */
+    private final List<PlanNode> children;
+
+    /**
+     * 子节点并行批次：同一批次内的节点互不依赖
+     */
+    private final List<List<PlanNode>> childWaves;
+
+    /**
+     * 批量改写后的SQL
+     * key: 需要展开为 IN 的参数
+     */
+    private final Map<List<String>, String> batchSqlCache = new ConcurrentHashMap<>();
+
+    /**
+     * 数据库拒绝执行的批量改写（如语法不被支持），之后直接逐行查询，重新加载API时重置
+     * 元素: 需要展开为 IN 的参数
+     */
+    private final Set<List<String>> batchRejected = ConcurrentHashMap.newKeySet();
+
+    PlanNode(Long id, String nodeName, QueryNodeType queryNodeType, Integer dataSourceId, String sql,
+             List<String> paramNames, Map<String, String> batchKeyColumns, boolean rowLimited, String bindingName,
+             int cacheTtlSeconds, boolean columnar, int queryTimeoutSeconds, ResultShape shape, ResultBinding binding, List<PlanNode> children, List<List<PlanNode>> childWaves) {
+        this.id = id;
+        this.nodeName = nodeName;
+        this.queryNodeType = queryNodeType;
+        this.dataSourceId = dataSourceId;
+        this.sql = sql;
+        this.paramNames = paramNames;
+        this.batchKeyColumns = batchKeyColumns;
+        this.rowLimited = rowLimited;
+        this.bindingName = bindingName;
+        this.cacheTtlSeconds = cacheTtlSeconds;
+        this.columnar = columnar;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.shape = shape;
+        this.binding = binding;
+        this.children = children;
+        this.childWaves = childWaves;
+    }
+
+    public boolean hasChildren() {
+        return !children.isEmpty();
+    }
+
+    public boolean isCacheable() {
+        return cacheTtlSeconds > 0;
+    }
+
+    /**
+     * 获取把指定参数改写为 IN 的批量SQL，过滤列按参数顺序以 {@link SqlUtils#BATCH_KEY_ALIAS_PREFIX} 加序号的别名返回
+     */
+    public String getBatchSql(List<String> varying) {
+        return batchSqlCache.computeIfAbsent(varying, key -> SqlUtils.toBatchSql(sql, key));
+    }
+
+    /**
+     * 指定参数的批量改写是否已被数据库拒绝
+     */
+    public boolean isBatchRejected(List<String> varying) {
+        return batchRejected.contains(varying);
+    }
+
+    /**
+     * 记录指定参数的批量改写被数据库拒绝
+     *
+     * @return 是否首次记录
+     */
+    public boolean rejectBatch(List<String> varying) {
+        return batchRejected.add(List.copyOf(varying));
+    }
+}
@@ -0,0 +1,45 @@
+package com.xqy.plan;
+
+import com.xqy.enums.RelationType;
+
+import java.util.Map;
+
+/**
+ * 节点结果回填策略，与 {@link RelationType} 一一对应
+ *
+ * @author xqy
+ */
+public enum ResultBinding {
+
+    /**
+     * 子节点关系：以 bindingName 为键放入父行
+     */
+    CHILD {
+        @Override
+        public void bind(Map<String, Object> row, String bindingName, Object value) {
+            row.put(bindingName, value);
+        }
+    },
+
+    /**
+     * 兄弟关系：单行结果的各列合并进父行
+     */
+    SIBLING {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void bind(Map<String, Object> row, String bindingName, Object value) {
+            if (value instanceof Map<?, ?>) {
+                row.putAll((Map<String, Object>) value);
+            }
+        }
+    };
+
+    public abstract void bind(Map<String, Object> row, String bindingName, Object value);
+
+    public static ResultBinding of(RelationType relationType) {
+        return switch (relationType) {
+            case CHILD -> CHILD;
+            case SIBLING -> SIBLING;
+        };
+    }
+}
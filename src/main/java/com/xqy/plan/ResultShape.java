@@ -0,0 +1,87 @@
+package com.xqy.plan;
+
+import com.xqy.enums.QueryNodeType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点结果整形策略，与 {@link QueryNodeType} 一一对应
+ *
+ * @author xqy
+ */
+public enum ResultShape {
+
+    /**
+     * 多行
+     */
+    ROWS {
+        @Override
+        public Object shape(List<Map<String, Object>> rows) {
+            return rows;
+        }
+
+        @Override
+        public List<Map<String, Object>> childRows(List<Map<String, Object>> rows) {
+            return rows;
+        }
+    },
+
+    /**
+     * 单行
+     */
+    ROW {
+        @Override
+        public Object shape(List<Map<String, Object>> rows) {
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+
+        @Override
+        public List<Map<String, Object>> childRows(List<Map<String, Object>> rows) {
+            return rows.isEmpty() ? List.of() : List.of(rows.get(0));
+        }
+    },
+
+    /**
+     * 单列-数组
+     */
+    COLUMN {
+        @Override
+        public Object shape(List<Map<String, Object>> rows) {
+            return rows.stream()
+                    .map(obj -> obj.values().iterator().next())
+                    .toList();
+        }
+    },
+
+    /**
+     * 单值：取第一行第一列的值
+     */
+    VALUE {
+        @Override
+        public Object shape(List<Map<String, Object>> rows) {
+            return rows.isEmpty() ? null : rows.get(0).values().iterator().next();
+        }
+    };
+
+    /**
+     * 把查询结果整形为节点值
+     */
+    public abstract Object shape(List<Map<String, Object>> rows);
+
+    /**
+     * 需要继续执行下层节点的结果行
+     */
+    public List<Map<String, Object>> childRows(List<Map<String, Object>> rows) {
+        return List.of();
+    }
+
+    public static ResultShape of(QueryNodeType queryNodeType) {
+        return switch (queryNodeType) {
+            case ROWS -> ROWS;
+            case ROW -> ROW;
+            case COLUMN -> COLUMN;
+            case VALUE -> VALUE;
+        };
+    }
+}
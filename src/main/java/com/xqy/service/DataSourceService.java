@@ -21,4 +21,11 @@ public interface DataSourceService extends IService<DataSource> {
      * @param id 数据源ID
      */
     void setDefaultDataSource(Integer id);
+
+    /**
+     * 清空数据源单独设置的连接池与慢查询配置，恢复默认配置
+     *
+     * @param id 数据源ID
+     */
+    void resetPoolConfig(Integer id);
 }
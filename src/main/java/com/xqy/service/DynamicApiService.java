@@ -1,9 +1,11 @@
 package com.xqy.service;
 
+import com.xqy.dto.ResultCacheStatsDto;
 import com.xqy.entity.ApiInfo;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 动态API执行服务接口
@@ -39,4 +41,25 @@ public interface DynamicApiService {
      * @return API信息
      */
     ApiInfo getApiInfo(String apiPath, String method);
+
+    /**
+     * 获取已注册API引用的数据源ID
+     *
+     * @return 数据源ID集合
+     */
+    Set<Integer> getReferencedDataSourceIds();
+
+    /**
+     * 清除指定API的结果缓存（含分页总数缓存）
+     *
+     * @param apiId API ID
+     */
+    void evictResultCache(Long apiId);
+
+    /**
+     * 获取API结果缓存统计
+     *
+     * @return 缓存统计
+     */
+    ResultCacheStatsDto getResultCacheStats();
 }
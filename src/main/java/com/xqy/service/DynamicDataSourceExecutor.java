@@ -1,10 +1,15 @@
 package com.xqy.service;
 
+import com.xqy.datasource.dialect.SqlDialect;
+import com.xqy.dto.DataSourceStatusDto;
+import com.xqy.dto.SlowQueryDto;
+import com.xqy.dto.SqlCacheStatsDto;
 import com.xqy.entity.DataSource;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 动态数据源执行器服务
@@ -20,7 +25,20 @@ public interface DynamicDataSourceExecutor {
      * @param params       参数
      * @return 查询结果列表
      */
-    List<Map<String, Object>> executeQueryForList(Integer dataSourceId, String sql, Map<String, Object> params);
+    default List<Map<String, Object>> executeQueryForList(Integer dataSourceId, String sql, Map<String, Object> params) {
+        return executeQueryForList(dataSourceId, sql, params, 0);
+    }
+
+    /**
+     * 执行查询SQL - 返回多行结果
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param params       参数
+     * @param queryTimeoutSeconds 语句超时（秒），不大于0时不限制
+     * @return 查询结果列表
+     */
+    List<Map<String, Object>> executeQueryForList(Integer dataSourceId, String sql, Map<String, Object> params, int queryTimeoutSeconds);
 
     /**
      * 执行查询SQL - 返回单行结果
@@ -30,7 +48,20 @@ public interface DynamicDataSourceExecutor {
      * @param params       参数
      * @return 单行结果
      */
-    Map<String, Object> executeQueryForMap(Integer dataSourceId, String sql, Map<String, Object> params);
+    default Map<String, Object> executeQueryForMap(Integer dataSourceId, String sql, Map<String, Object> params) {
+        return executeQueryForMap(dataSourceId, sql, params, 0);
+    }
+
+    /**
+     * 执行查询SQL - 返回单行结果
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param params       参数
+     * @param queryTimeoutSeconds 语句超时（秒），不大于0时不限制
+     * @return 单行结果
+     */
+    Map<String, Object> executeQueryForMap(Integer dataSourceId, String sql, Map<String, Object> params, int queryTimeoutSeconds);
 
     /**
      * 执行查询SQL - 返回单个值
@@ -40,7 +71,55 @@ public interface DynamicDataSourceExecutor {
      * @param params       参数
      * @return 单个值
      */
-    Object executeQueryForObject(Integer dataSourceId, String sql, Map<String, Object> params);
+    default Object executeQueryForObject(Integer dataSourceId, String sql, Map<String, Object> params) {
+        return executeQueryForObject(dataSourceId, sql, params, 0);
+    }
+
+    /**
+     * 执行查询SQL - 返回单个值
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param params       参数
+     * @param queryTimeoutSeconds 语句超时（秒），不大于0时不限制
+     * @return 单个值
+     */
+    Object executeQueryForObject(Integer dataSourceId, String sql, Map<String, Object> params, int queryTimeoutSeconds);
+
+    /**
+     * 执行查询 - 返回列式存储的多行结果，行为只读视图
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param params       参数
+     * @return 查询结果列表
+     */
+    default List<Map<String, Object>> executeQueryForColumnar(Integer dataSourceId, String sql, Map<String, Object> params) {
+        return executeQueryForColumnar(dataSourceId, sql, params, 0);
+    }
+
+    /**
+     * 执行查询 - 返回列式存储的多行结果，行为只读视图
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param params       参数
+     * @param queryTimeoutSeconds 语句超时（秒），不大于0时不限制
+     * @return 查询结果列表
+     */
+    List<Map<String, Object>> executeQueryForColumnar(Integer dataSourceId, String sql, Map<String, Object> params, int queryTimeoutSeconds);
+
+    /**
+     * 流式查询 - 逐行读取 ResultSet 并回调，不在内存中保留结果
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param params       参数
+     * @param queryTimeoutSeconds 语句超时（秒），不大于0时不限制
+     * @param rowConsumer  行回调
+     */
+    void executeQueryForStream(Integer dataSourceId, String sql, Map<String, Object> params, int queryTimeoutSeconds,
+                               Consumer<Map<String, Object>> rowConsumer);
 
     /**
      * 获取指定数据源的JdbcTemplate
@@ -50,6 +129,59 @@ public interface DynamicDataSourceExecutor {
      */
     JdbcTemplate getJdbcTemplate(Integer dataSourceId);
 
+    /**
+     * 获取SQL解析缓存统计
+     *
+     * @return 各数据源的缓存统计
+     */
+    List<SqlCacheStatsDto> getSqlCacheStats();
+
+    /**
+     * 获取慢查询汇总（按数据源与SQL指纹汇总，按累计耗时倒序）
+     *
+     * @param dataSourceId 数据源ID，为空时返回全部数据源
+     * @param top          返回条数
+     * @return 慢查询汇总
+     */
+    List<SlowQueryDto> getSlowQueries(Integer dataSourceId, int top);
+
+    /**
+     * 获取数据源隔离与熔断状态
+     *
+     * @return 各数据源状态
+     */
+    List<DataSourceStatusDto> getDataSourceStatus();
+
+    /**
+     * 获取数据源方言
+     *
+     * @param dataSourceId 数据源ID
+     * @return 方言
+     */
+    SqlDialect getDialect(Integer dataSourceId);
+
+    /**
+     * 获取数据源连接池最大活跃连接数
+     *
+     * @param dataSourceId 数据源ID
+     * @return 最大活跃连接数
+     */
+    int getMaxActive(Integer dataSourceId);
+
+    /**
+     * 预热数据源连接池：初始化连接池并建立 minIdle 个连接
+     *
+     * @param dataSourceId 数据源ID
+     */
+    void warmUp(Integer dataSourceId);
+
+    /**
+     * 数据源配置更新或删除后刷新连接池
+     *
+     * @param dataSourceId 数据源ID
+     */
+    void refreshDataSource(Integer dataSourceId);
+
     /**
      * 测试数据源连接
      *
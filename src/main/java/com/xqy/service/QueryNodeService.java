@@ -4,7 +4,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.xqy.dto.QueryNodeTreeDto;
 import com.xqy.entity.QueryNode;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 查询节点Service接口
@@ -20,6 +22,14 @@ public interface QueryNodeService extends IService<QueryNode> {
      */
     QueryNodeTreeDto buildExecutionTree(Long rootNodeId);
 
+    /**
+     * 批量构建执行树：一次查询加载全部节点，在内存中按父节点ID组装
+     *
+     * @param rootNodeIds 根节点ID集合
+     * @return key: 根节点ID, value: 执行树（根节点不存在或节点树存在循环引用时不包含该键）
+     */
+    Map<Long, QueryNodeTreeDto> buildExecutionTrees(Collection<Long> rootNodeIds);
+
     /**
      * 根据根节点ID构建执行树
      *
@@ -48,4 +48,24 @@ public class DataSourceServiceImpl extends ServiceImpl<DataSourceMapper, DataSou
             throw new RuntimeException("数据源不存在: " + id);
         }
     }
+
+    /**
+     * 清空连接池与慢查询配置，恢复默认配置
+     * updateById 会跳过空字段，需要显式置空
+     */
+    @Override
+    public void resetPoolConfig(Integer id) {
+        LambdaUpdateWrapper<DataSource> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(DataSource::getId, id)
+                .set(DataSource::getInitialSize, null)
+                .set(DataSource::getMinIdle, null)
+                .set(DataSource::getMaxActive, null)
+                .set(DataSource::getMaxWait, null)
+                .set(DataSource::getPsCacheSize, null)
+                .set(DataSource::getSlowQueryMillis, null);
+        if (!this.update(updateWrapper)) {
+            throw new RuntimeException("数据源不存在: " + id);
+        }
+        log.info("数据源连接池配置已恢复默认: {}", id);
+    }
 }
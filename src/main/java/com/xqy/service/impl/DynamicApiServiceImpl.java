@@ -1,25 +1,40 @@
 package com.xqy.service.impl;
 
+import com.xqy.cache.ApiResultCache;
+import com.xqy.cache.PageCountCache;
+import com.xqy.config.QueryServerProperties;
 import com.xqy.dto.QueryNodeTreeDto;
+import com.xqy.dto.ResultCacheStatsDto;
 import com.xqy.entity.ApiInfo;
 import com.xqy.enums.ApiType;
+import com.xqy.metrics.QueryMetrics;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.plan.ExecutionPlanCompiler;
+import com.xqy.plan.PlanNode;
 import com.xqy.service.ApiInfoService;
 import com.xqy.service.DynamicApiService;
 import com.xqy.service.DynamicDataSourceExecutor;
 import com.xqy.service.QueryNodeService;
 import com.xqy.service.impl.handler.ApiHandler;
-import com.xqy.service.impl.handler.ListApiHandler;
-import com.xqy.service.impl.handler.ObjectApiHandler;
-import com.xqy.service.impl.handler.PageApiHandler;
+import com.xqy.service.impl.handler.QueryDeadline;
+import com.xqy.trace.QueryContext;
+import com.xqy.trace.QueryTrace;
+import com.xqy.trace.QueryTracer;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 动态API执行服务实现类
@@ -33,28 +48,19 @@ public class DynamicApiServiceImpl implements DynamicApiService {
     private final QueryNodeService queryNodeService;
     private final DynamicDataSourceExecutor dataSourceExecutor;
     private final Map<String, ApiHandler> apiHandlerMap;
+    private final ExecutionPlanCompiler planCompiler;
+    private final ApiResultCache resultCache;
+    private final PageCountCache pageCountCache;
+    private final QueryServerProperties properties;
+    private final QueryMetrics queryMetrics;
+    private final QueryTracer queryTracer;
 
     /**
-     * API配置缓存
+     * API路由快照（不可变，整体替换）
      * key: apiPath + ":" + method
-     * value: ApiInfo
+     * value: ApiRoute
      */
-    private final Map<String, ApiInfo> apiCache = new ConcurrentHashMap<>();
-
-    /**
-     * API处理器缓存
-     * key: apiPath + ":" + method
-     * value: ApiHandler
-     */
-    private final Map<String, ApiHandler> handlerCache = new ConcurrentHashMap<>();
-
-
-    /**
-     * 查询节点缓存
-     * key: queryNodeId
-     * value: QueryNodeTreeDto
-     */
-    private final Map<Long, QueryNodeTreeDto> queryNodeCache = new ConcurrentHashMap<>();
+    private volatile Map<String, ApiRoute> routes = Map.of();
 
     /**
      * 项目启动时初始化API配置
@@ -63,40 +69,92 @@ public class DynamicApiServiceImpl implements DynamicApiService {
     @Override
     public void initApiConfigs() {
         log.info("开始初始化API配置...");
-        
+
         try {
-            // 清空缓存
-            apiCache.clear();
-            handlerCache.clear();
-
-            // 从数据库加载所有API配置
-            List<ApiInfo> apiInfoList = apiInfoService.list();
-            
-            if (apiInfoList == null || apiInfoList.isEmpty()) {
-                log.warn("未找到任何API配置信息");
-                return;
-            }
+            refreshRoutes();
+        } catch (Exception e) {
+            log.error("初始化API配置失败", e);
+            throw new RuntimeException("初始化API配置失败: " + e.getMessage(), e);
+        }
+    }
 
-            // 遍历所有API配置，构建缓存和处理器
-            for (ApiInfo apiInfo : apiInfoList) {
-                String cacheKey = buildCacheKey(apiInfo.getApiPath(), apiInfo.getApiMethod());
-                
-                // 缓存API信息
-                apiCache.put(cacheKey, apiInfo);
+    /**
+     * 构建新的路由快照并原子替换
+     * 只重新编译API信息或节点树发生变化的API，编译失败时保留旧版本，请求过程中始终读取完整的快照
+     * 重新编译或移除的API清除其结果缓存与分页总数缓存
+     */
+    private synchronized void refreshRoutes() {
+        Map<String, ApiRoute> current = routes;
 
-                QueryNodeTreeDto queryNodeTreeDto = queryNodeService.buildExecutionTree(apiInfo.getRootQueryNodeId());
-                // 缓存查询节点
-                queryNodeCache.put(apiInfo.getRootQueryNodeId(), queryNodeTreeDto);
+        // 从数据库加载所有API配置
+        List<ApiInfo> apiInfoList = apiInfoService.list();
 
-                log.info("成功注册API: {} {} - {}", apiInfo.getApiMethod(), apiInfo.getApiPath(), apiInfo.getApiName());
+        if (apiInfoList == null || apiInfoList.isEmpty()) {
+            log.warn("未找到任何API配置信息");
+            routes = Map.of();
+            evictRemoved(current, Map.of());
+            return;
+        }
+
+        // 一次加载所有API的执行树
+        Map<Long, QueryNodeTreeDto> trees = queryNodeService.buildExecutionTrees(
+                apiInfoList.stream().map(ApiInfo::getRootQueryNodeId).filter(Objects::nonNull).distinct().toList());
+
+        Map<String, ApiRoute> next = new HashMap<>();
+        int compiled = 0;
+        for (ApiInfo apiInfo : apiInfoList) {
+            String cacheKey = buildCacheKey(apiInfo.getApiPath(), apiInfo.getApiMethod());
+            QueryNodeTreeDto tree = trees.get(apiInfo.getRootQueryNodeId());
+
+            // API信息与节点树均未变化时沿用旧版本
+            ApiRoute previous = current.get(cacheKey);
+            if (previous != null && previous.apiInfo().equals(apiInfo) && Objects.equals(previous.tree(), tree)) {
+                next.put(cacheKey, previous);
+                continue;
             }
 
-            log.info("API配置初始化完成，共加载 {} 个API", apiInfoList.size());
-            
-        } catch (Exception e) {
-            log.error("初始化API配置失败", e);
-            throw new RuntimeException("初始化API配置失败: " + e.getMessage(), e);
+            try {
+                ExecutionPlan plan = planCompiler.compile(apiInfo, tree);
+                next.put(cacheKey, new ApiRoute(apiInfo, plan, getApiHandler(apiInfo), tree));
+                compiled++;
+                if (previous != null) {
+                    // API定义已变化，旧结果作废
+                    resultCache.evict(cacheKey);
+                    pageCountCache.evict(apiInfo.getId());
+                }
+            } catch (Exception e) {
+                log.error("API注册失败: {} {} - {}", apiInfo.getApiMethod(), apiInfo.getApiPath(), apiInfo.getApiName(), e);
+                if (previous != null) {
+                    // 保留旧版本继续提供服务
+                    next.put(cacheKey, previous);
+                }
+                continue;
+            }
+
+            log.info("成功注册API: {} {} - {}", apiInfo.getApiMethod(), apiInfo.getApiPath(), apiInfo.getApiName());
+        }
+
+        routes = Map.copyOf(next);
+        int removed = evictRemoved(current, next);
+        log.info("API配置加载完成，共 {} 个API，重新编译 {} 个，移除 {} 个", next.size(), compiled, removed);
+    }
+
+    /**
+     * 清除已移除API（删除或修改了路径、方法）的结果缓存与分页总数缓存
+     *
+     * @return 移除的API数
+     */
+    private int evictRemoved(Map<String, ApiRoute> current, Map<String, ApiRoute> next) {
+        int removed = 0;
+        for (Map.Entry<String, ApiRoute> entry : current.entrySet()) {
+            if (next.containsKey(entry.getKey())) {
+                continue;
+            }
+            resultCache.evict(entry.getKey());
+            pageCountCache.evict(entry.getValue().apiInfo().getId());
+            removed++;
         }
+        return removed;
     }
 
     /**
@@ -106,21 +164,53 @@ public class DynamicApiServiceImpl implements DynamicApiService {
     public Object executeApi(String apiPath, String method, Map<String, Object> params, HttpServletRequest request) {
         String cacheKey = buildCacheKey(apiPath, method);
 
-        ApiInfo apiInfo = apiCache.get(cacheKey);
-        QueryNodeTreeDto queryNodeTreeDto = queryNodeCache.get(apiInfo.getRootQueryNodeId());
+        ApiRoute route = routes.get(cacheKey);
+        if (route == null) {
+            throw new RuntimeException("API不存在: " + method + " " + apiPath);
+        }
+        ExecutionPlan plan = route.plan();
+        ApiHandler apiHandler = route.handler();
+        // 流式输出在写出时才查询，不追踪
+        QueryTrace trace = Boolean.TRUE.equals(plan.apiInfo().getStreaming()) ? null : queryTracer.start(apiPath, plan.root(), request);
 
-        try {
-            log.info("开始执行API: {} {}, 参数: {}", method, apiPath, params);
-            ApiHandler apiHandler = getApiHandler(apiInfo);
+        long start = System.nanoTime();
+        QueryDeadline deadline = QueryDeadline.of(plan.apiInfo().getTimeoutMillis());
+        try (QueryContext ignored = QueryContext.open(apiPath, plan.root().getId(), trace, deadline)) {
+            // 只记录参数个数，避免格式化大参数
+            log.debug("开始执行API: {} {}, 参数个数: {}", method, apiPath, params == null ? 0 : params.size());
             // 执行处理器
-            Object result = apiHandler.handle(apiInfo, queryNodeTreeDto, dataSourceExecutor,params);
-            
-            log.info("API执行成功: {} {}", method, apiPath);
+            // 流式输出的结果在写出时才查询，不经过结果缓存；请求追踪时需要实际执行，也不经过结果缓存
+            Integer cacheTtlSeconds = plan.apiInfo().getCacheTtlSeconds();
+            boolean cacheable = cacheTtlSeconds != null && cacheTtlSeconds > 0
+                    && !Boolean.TRUE.equals(plan.apiInfo().getStreaming())
+                    && (trace == null || !trace.isRequested());
+            Supplier<Object> handler = () -> queryMetrics.recordHandler(apiPath, plan.apiInfo().getApiType().getValue(),
+                    () -> apiHandler.handle(plan, dataSourceExecutor, params, deadline));
+            Object result = queryMetrics.recordApi(apiPath, method.toUpperCase(), () -> cacheable
+                    ? resultCache.get(cacheKey, params, cacheTtlSeconds, handler)
+                    : handler.get());
+
+            logCompleted(method, apiPath, params, start);
             return result;
-            
+
         } catch (Exception e) {
             log.error("API执行失败: {} {}", method, apiPath, e);
             throw new RuntimeException("API执行失败: " + e.getMessage(), e);
+        } finally {
+            queryTracer.finish(trace, request);
+        }
+    }
+
+    /**
+     * 请求完成日志：DEBUG 级别逐条记录，否则按采样率记录 INFO
+     */
+    private void logCompleted(String method, String apiPath, Map<String, Object> params, long start) {
+        double sampleRate = properties.getLogging().getRequestSampleRate();
+        if (log.isDebugEnabled()) {
+            log.debug("API执行成功: {} {}, 耗时 {}ms", method, apiPath, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("API执行成功（采样）: {} {}, 参数个数: {}, 耗时 {}ms", method, apiPath, params == null ? 0 : params.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
     }
 
@@ -130,7 +220,13 @@ public class DynamicApiServiceImpl implements DynamicApiService {
     @Override
     public void reloadApiConfigs() {
         log.info("开始重新加载API配置...");
-        initApiConfigs();
+        try {
+            refreshRoutes();
+        } catch (Exception e) {
+            // 加载失败时继续使用当前快照
+            log.error("重新加载API配置失败", e);
+            throw new RuntimeException("重新加载API配置失败: " + e.getMessage(), e);
+        }
         log.info("API配置重新加载完成");
     }
 
@@ -139,8 +235,41 @@ public class DynamicApiServiceImpl implements DynamicApiService {
      */
     @Override
     public ApiInfo getApiInfo(String apiPath, String method) {
-        String cacheKey = buildCacheKey(apiPath, method);
-        return apiCache.get(cacheKey);
+        ApiRoute route = routes.get(buildCacheKey(apiPath, method));
+        return route == null ? null : route.apiInfo();
+    }
+
+    /**
+     * 已注册API引用的数据源
+     */
+    @Override
+    public Set<Integer> getReferencedDataSourceIds() {
+        return routes.values().stream()
+                .flatMap(route -> route.plan().nodes().stream())
+                .map(PlanNode::getDataSourceId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 清除指定API的结果缓存（含分页总数缓存）
+     */
+    @Override
+    public void evictResultCache(Long apiId) {
+        ApiInfo apiInfo = apiInfoService.getById(apiId);
+        if (apiInfo == null) {
+            throw new RuntimeException("API不存在: " + apiId);
+        }
+        resultCache.evict(buildCacheKey(apiInfo.getApiPath(), apiInfo.getApiMethod()));
+        pageCountCache.evict(apiId);
+    }
+
+    /**
+     * API结果缓存统计
+     */
+    @Override
+    public ResultCacheStatsDto getResultCacheStats() {
+        return resultCache.stats();
     }
 
     /**
@@ -168,4 +297,10 @@ public class DynamicApiServiceImpl implements DynamicApiService {
         }
         return apiHandler;
     }
+
+    /**
+     * API路由：API信息、执行计划、处理器及编译时的节点树（重新加载时按内容比较，判断是否需要重新编译）
+     */
+    private record ApiRoute(ApiInfo apiInfo, ExecutionPlan plan, ApiHandler handler, QueryNodeTreeDto tree) {
+    }
 }
\ No newline at end of file
@@ -1,22 +1,55 @@
 package com.xqy.service.impl;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.datasource.CachingNamedParameterJdbcTemplate;
+import com.xqy.datasource.ColumnarResultExtractor;
+import com.xqy.datasource.DataSourceLimiter;
+import com.xqy.datasource.ManagedDataSource;
+import com.xqy.datasource.SlowQueryLog;
+import com.xqy.datasource.dialect.SqlDialect;
+import com.xqy.datasource.dialect.SqlDialects;
+import com.xqy.dto.DataSourceStatusDto;
+import com.xqy.dto.SlowQueryDto;
+import com.xqy.dto.SqlCacheStatsDto;
 import com.xqy.entity.DataSource;
+import com.xqy.metrics.QueryMetrics;
 import com.xqy.service.DataSourceService;
 import com.xqy.service.DynamicDataSourceExecutor;
+import com.xqy.trace.QueryContext;
+import com.xqy.trace.QueryTrace;
+import com.xqy.util.SqlUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.stereotype.Service;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.regex.Pattern;
 
 /**
@@ -28,27 +61,58 @@ import java.util.regex.Pattern;
 public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor {
 
     private final DataSourceService dataSourceService;
+    private final DataSourceLimiter dataSourceLimiter;
+    private final QueryServerProperties properties;
+    private final SqlDialects sqlDialects;
+    private final QueryMetrics queryMetrics;
+    private final SlowQueryLog slowQueryLog;
 
     // 数据源缓存
-    private final Map<Integer, DruidDataSource> dataSourceCache = new ConcurrentHashMap<>();
-    private final Map<Integer, JdbcTemplate> jdbcTemplateCache = new ConcurrentHashMap<>();
+    private final Map<Integer, ManagedDataSource> managedCache = new ConcurrentHashMap<>();
+
+    // 已注册连接池指标的数据源
+    private final Set<Integer> meteredDataSources = ConcurrentHashMap.newKeySet();
+
+    // 连接池排空关闭与空闲淘汰
+    private ScheduledExecutorService lifecycleExecutor;
+
+    // 流式查询的调用方式
+    private static final String STREAM = "stream";
+
+    // 执行计划查询中集合参数保留的元素数
+    private static final int EXPLAIN_LIST_LIMIT = 10;
 
     // 必须使用命名参数 :paramName 形式
     private static final Pattern NAMED_PARAM_PATTERN = Pattern.compile(":[a-zA-Z_][a-zA-Z0-9_]*");
 
+    @PostConstruct
+    public void init() {
+        lifecycleExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datasource-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long idleTimeout = properties.getDatasource().getIdleTimeoutMillis();
+        if (idleTimeout > 0) {
+            long interval = Math.max(1000, Math.min(idleTimeout, properties.getDatasource().getIdleCheckMillis()));
+            lifecycleExecutor.scheduleWithFixedDelay(this::closeIdleDataSources, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
     /**
      * 执行查询 - 返回多行结果（安全版）
      */
     @Override
-    public List<Map<String, Object>> executeQueryForList(Integer dataSourceId, String sql, Map<String, Object> params) {
+    public List<Map<String, Object>> executeQueryForList(Integer dataSourceId, String sql, Map<String, Object> params,
+                                                          int queryTimeoutSeconds) {
 
         validateSqlMustUseNamedParameters(sql, dataSourceId);
 
         try {
-            NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(getJdbcTemplate(dataSourceId));
             Map<String, Object> paramMap = params == null ? Collections.emptyMap() : params;
 
-            return template.queryForList(sql, paramMap);
+            return limit(dataSourceId, "list", sql, paramMap, managed -> managed.getNamedTemplate().query(sql, paramMap, queryTimeoutSeconds,
+                    new RowMapperResultSetExtractor<>(new ColumnMapRowMapper())));
 
         } catch (Exception e) {
             log.error("执行查询失败 [多行] dataSourceId: {}, sql: {}", dataSourceId, sql, e);
@@ -60,14 +124,15 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
      * 执行查询 - 返回单行结果（安全版）
      */
     @Override
-    public Map<String, Object> executeQueryForMap(Integer dataSourceId, String sql, Map<String, Object> params) {
+    public Map<String, Object> executeQueryForMap(Integer dataSourceId, String sql, Map<String, Object> params,
+                                                  int queryTimeoutSeconds) {
         validateSqlMustUseNamedParameters(sql, dataSourceId);
 
         try {
-            NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(getJdbcTemplate(dataSourceId));
             Map<String, Object> paramMap = params == null ? Collections.emptyMap() : params;
 
-            return template.queryForMap(sql, paramMap);
+            return limit(dataSourceId, "map", sql, paramMap, managed -> DataAccessUtils.nullableSingleResult(managed.getNamedTemplate().query(sql, paramMap, queryTimeoutSeconds,
+                    new RowMapperResultSetExtractor<>(new ColumnMapRowMapper()))));
 
             // 更简洁写法（推荐）
 //             return template.queryForMap(sql, paramMap, new MapResultSetExtractor<>(true));
@@ -84,14 +149,15 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
      * 执行查询 - 返回单个值（安全版）
      */
     @Override
-    public Object executeQueryForObject(Integer dataSourceId, String sql, Map<String, Object> params) {
+    public Object executeQueryForObject(Integer dataSourceId, String sql, Map<String, Object> params,
+                                        int queryTimeoutSeconds) {
         validateSqlMustUseNamedParameters(sql, dataSourceId);
 
         try {
-            NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(getJdbcTemplate(dataSourceId));
             Map<String, Object> paramMap = params == null ? Collections.emptyMap() : params;
 
-            return template.queryForObject(sql, paramMap, Object.class);
+            return limit(dataSourceId, "object", sql, paramMap, managed -> DataAccessUtils.nullableSingleResult(managed.getNamedTemplate().query(sql, paramMap, queryTimeoutSeconds,
+                    new RowMapperResultSetExtractor<>(new SingleColumnRowMapper<>()))));
 
         } catch (EmptyResultDataAccessException e) {
             return null; // 根据业务决定返回 null 或抛异常
@@ -101,11 +167,214 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
         }
     }
 
+    /**
+     * 执行查询 - 返回列式存储的多行结果
+     */
+    @Override
+    public List<Map<String, Object>> executeQueryForColumnar(Integer dataSourceId, String sql, Map<String, Object> params,
+                                                              int queryTimeoutSeconds) {
+        validateSqlMustUseNamedParameters(sql, dataSourceId);
+
+        try {
+            Map<String, Object> paramMap = params == null ? Collections.emptyMap() : params;
+
+            return limit(dataSourceId, "columnar", sql, paramMap, managed -> managed.getNamedTemplate().query(sql, paramMap, queryTimeoutSeconds, new ColumnarResultExtractor()));
+
+        } catch (Exception e) {
+            log.error("执行查询失败 [列式] dataSourceId: {}, sql: {}", dataSourceId, sql, e);
+            throw new RuntimeException("查询失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 流式查询 - 逐行读取 ResultSet 并回调
+     * 连接与流式查询许可在整个读取过程中持有，回调中可以查询同一数据源（使用普通查询许可与其他连接）
+     */
+    @Override
+    public void executeQueryForStream(Integer dataSourceId, String sql, Map<String, Object> params, int queryTimeoutSeconds,
+                                      Consumer<Map<String, Object>> rowConsumer) {
+        validateSqlMustUseNamedParameters(sql, dataSourceId);
+
+        try {
+            Map<String, Object> paramMap = params == null ? Collections.emptyMap() : params;
+
+            limit(dataSourceId, STREAM, sql, paramMap, managed -> managed.getNamedTemplate().execute(sql, paramMap, (PreparedStatementCallback<Void>) ps -> {
+                // MySQL 等驱动需要特定取值才会真正流式读取，由方言决定
+                ps.setFetchSize(managed.getDialect().streamingFetchSize(managed.getPool().getUrl(),
+                        properties.getStreaming().getFetchSize()));
+                if (queryTimeoutSeconds > 0) {
+                    ps.setQueryTimeout(queryTimeoutSeconds);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+                    int rowNum = 0;
+                    while (rs.next()) {
+                        rowConsumer.accept(rowMapper.mapRow(rs, rowNum++));
+                    }
+                }
+                return null;
+            }));
+
+        } catch (Exception e) {
+            log.error("执行查询失败 [流式] dataSourceId: {}, sql: {}", dataSourceId, sql, e);
+            throw new RuntimeException("查询失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 经数据源隔离与熔断执行，并发数不超过连接池 maxActive；流式查询使用单独的许可，不计入熔断统计
+     * 执行期间登记在托管数据源上，数据源被替换或淘汰时等待查询结束后再关闭
+     * 调用耗时（含排队）、返回行数与等待许可的时间记录到 {@link QueryMetrics}，开启追踪时同时记录到 {@link QueryTrace}
+     * 超过慢查询阈值的调用记录到 {@link SlowQueryLog}，慢查询耗时从取得许可开始计算，不含排队时间
+     * 在请求中执行时，等待许可的时间不超过请求剩余时间，预算已耗尽时直接失败
+     */
+    private <T> T limit(Integer dataSourceId, String operation, String sql, Map<String, ?> paramMap,
+                        Function<ManagedDataSource, T> call) {
+        long start = System.nanoTime();
+        QueryTrace trace = QueryTrace.current();
+        long[] waitNanos = new long[1];
+        long[] permittedAt = new long[1];
+        T result = null;
+        boolean failed = true;
+        try {
+            QueryContext context = QueryContext.current();
+            if (context != null) {
+                context.getDeadline().check();
+            }
+            long maxWaitMillis = QueryContext.remainingMillis();
+            Supplier<T> permitted = () -> {
+                permittedAt[0] = System.nanoTime();
+                waitNanos[0] = permittedAt[0] - start;
+                queryMetrics.recordPermitWait(dataSourceId, waitNanos[0]);
+                while (true) {
+                    ManagedDataSource managed = getManagedDataSource(dataSourceId);
+                    if (managed.enter()) {
+                        try {
+                            return call.apply(managed);
+                        } finally {
+                            managed.exit();
+                        }
+                    }
+                    // 获取后恰好被替换，重新获取
+                }
+            };
+            result = queryMetrics.recordDataSource(dataSourceId, operation, () -> STREAM.equals(operation)
+                    ? dataSourceLimiter.stream(dataSourceId, () -> getMaxActive(dataSourceId), maxWaitMillis, permitted)
+                    : dataSourceLimiter.call(dataSourceId, () -> getMaxActive(dataSourceId), maxWaitMillis, permitted));
+            failed = false;
+            return result;
+        } finally {
+            long end = System.nanoTime();
+            if (trace != null) {
+                trace.statement(operation, sql, paramMap.size(), result, waitNanos[0] + QueryTrace.takeAcquireNanos(),
+                        end - start, failed);
+            }
+            if (permittedAt[0] != 0) {
+                // 未取得许可（排队超时或熔断）时没有执行语句，不记录慢查询
+                recordSlowQuery(dataSourceId, operation, sql, paramMap, result, end - permittedAt[0], failed);
+            }
+        }
+    }
+
+    /**
+     * 超过阈值时记录慢查询；流式查询的耗时包含写出响应的时间，不记录
+     */
+    private void recordSlowQuery(Integer dataSourceId, String operation, String sql, Map<String, ?> paramMap,
+                                 Object result, long elapsedNanos, boolean failed) {
+        if (STREAM.equals(operation)) {
+            return;
+        }
+        ManagedDataSource managed = managedCache.get(dataSourceId);
+        Integer configured = managed != null ? managed.getSlowQueryMillis() : null;
+        long threshold = configured != null ? configured : properties.getSlowQuery().getThresholdMillis();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (threshold <= 0 || elapsedMillis < threshold) {
+            return;
+        }
+        QueryContext context = QueryContext.current();
+        long rows = result instanceof Collection<?> collection ? collection.size() : result == null ? 0 : 1;
+        String explainSql = managed != null ? managed.getDialect().explainSql(sql) : null;
+        Map<String, Object> explainParams = explainSql == null ? null : explainParams(sql, paramMap);
+        slowQueryLog.record(dataSourceId, context != null ? context.getApi() : null, context != null ? context.getNodeId() : null,
+                operation, sql, paramShape(paramMap), elapsedMillis, rows, failed,
+                explainSql == null ? null : () -> explain(dataSourceId, explainSql, explainParams));
+    }
+
+    /**
+     * 执行计划查询的参数：只复制SQL中用到的参数，集合参数只保留前 {@value #EXPLAIN_LIST_LIMIT} 个元素，
+     * 排队中的任务不持有批量查询的完整 IN 列表
+     */
+    private Map<String, Object> explainParams(String sql, Map<String, ?> paramMap) {
+        Map<String, Object> explainParams = new HashMap<>();
+        for (String name : SqlUtils.parseParameterNames(sql)) {
+            Object value = paramMap.get(name);
+            if (value instanceof Collection<?> collection && collection.size() > EXPLAIN_LIST_LIMIT) {
+                value = collection.stream().limit(EXPLAIN_LIST_LIMIT).toList();
+            }
+            explainParams.put(name, value);
+        }
+        return explainParams;
+    }
+
+    /**
+     * 参数形态：参数名与值类型，集合参数只记录元素个数，不记录参数值
+     */
+    private String paramShape(Map<String, ?> paramMap) {
+        StringBuilder shape = new StringBuilder();
+        paramMap.forEach((name, value) -> {
+            shape.append(shape.isEmpty() ? "" : ", ").append(name).append(':');
+            if (value instanceof Collection<?> collection) {
+                shape.append("List[").append(collection.size()).append(']');
+            } else {
+                shape.append(value == null ? "null" : value.getClass().getSimpleName());
+            }
+        });
+        return shape.toString();
+    }
+
+    /**
+     * 在原数据源上查询执行计划，每行各列以 " | " 连接
+     * 由慢查询后台单线程执行，占用数据源许可但不计入熔断与慢查询统计；熔断未关闭时不执行，返回 null，下次慢查询再尝试
+     */
+    private String explain(Integer dataSourceId, String explainSql, Map<String, Object> paramMap) {
+        return dataSourceLimiter.bulkhead(dataSourceId, () -> getMaxActive(dataSourceId), Long.MAX_VALUE, () -> {
+            ManagedDataSource managed = getManagedDataSource(dataSourceId);
+            if (!managed.enter()) {
+                return null;
+            }
+            try {
+                List<Map<String, Object>> rows = managed.getNamedTemplate().query(explainSql, paramMap,
+                        properties.getSlowQuery().getExplainTimeoutSeconds(), new RowMapperResultSetExtractor<>(new ColumnMapRowMapper()));
+                StringBuilder plan = new StringBuilder();
+                for (Map<String, Object> row : rows) {
+                    plan.append(plan.isEmpty() ? "" : "\n").append(String.join(" | ",
+                            row.values().stream().map(String::valueOf).toList()));
+                }
+                return plan.toString();
+            } finally {
+                managed.exit();
+            }
+        });
+    }
+
+    /**
+     * 慢查询汇总
+     */
+    @Override
+    public List<SlowQueryDto> getSlowQueries(Integer dataSourceId, int top) {
+        return slowQueryLog.top(dataSourceId, top);
+    }
+
     /**
      * 强制校验：SQL 必须包含至少一个命名参数 :xxx
      * 从设计上彻底杜绝字符串拼接SQL
      */
     private void validateSqlMustUseNamedParameters(String sql, Integer dataSourceId) {
+        // 解析缓存中的SQL都已通过校验，执行计划中的节点SQL无需每次请求重复正则匹配
+        ManagedDataSource managed = managedCache.get(dataSourceId);
+        if (managed != null && sql != null && managed.getNamedTemplate().isParsed(sql)) {
+            return;
+        }
         if (sql == null || !NAMED_PARAM_PATTERN.matcher(sql).find()) {
             log.error("SQL注入风险拦截 - 禁止使用无命名参数的SQL, dataSourceId: {}, sql: {}", dataSourceId, sql);
             throw new IllegalArgumentException(
@@ -118,10 +387,48 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
      */
     @Override
     public JdbcTemplate getJdbcTemplate(Integer dataSourceId) {
-        return jdbcTemplateCache.computeIfAbsent(dataSourceId, id -> {
-            DruidDataSource ds = getDruidDataSource(id);
-            return new JdbcTemplate(ds);
-        });
+        return getManagedDataSource(dataSourceId).getJdbcTemplate();
+    }
+
+    /**
+     * 获取数据源方言
+     */
+    @Override
+    public SqlDialect getDialect(Integer dataSourceId) {
+        return getManagedDataSource(dataSourceId).getDialect();
+    }
+
+    /**
+     * 获取连接池最大活跃连接数
+     */
+    @Override
+    public int getMaxActive(Integer dataSourceId) {
+        return getManagedDataSource(dataSourceId).getPool().getMaxActive();
+    }
+
+    /**
+     * SQL解析缓存统计
+     */
+    @Override
+    public List<SqlCacheStatsDto> getSqlCacheStats() {
+        return managedCache.entrySet().stream().map(entry -> {
+            CachingNamedParameterJdbcTemplate template = entry.getValue().getNamedTemplate();
+            SqlCacheStatsDto stats = new SqlCacheStatsDto();
+            stats.setDataSourceId(entry.getKey());
+            stats.setSize(template.getCacheSize());
+            stats.setCapacity(template.getCacheCapacity());
+            stats.setHits(template.getHits());
+            stats.setMisses(template.getMisses());
+            return stats;
+        }).toList();
+    }
+
+    /**
+     * 数据源隔离与熔断状态
+     */
+    @Override
+    public List<DataSourceStatusDto> getDataSourceStatus() {
+        return dataSourceLimiter.status();
     }
 
     /**
@@ -139,11 +446,42 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
         }
     }
 
-    private DruidDataSource getDruidDataSource(Integer dataSourceId) {
-        return dataSourceCache.computeIfAbsent(dataSourceId, id -> {
+    /**
+     * 获取托管数据源，首次使用时创建连接池
+     */
+    private ManagedDataSource getManagedDataSource(Integer dataSourceId) {
+        return managedCache.computeIfAbsent(dataSourceId, id -> {
             DataSource config = dataSourceService.getById(id);
             if (config == null) throw new RuntimeException("数据源不存在: " + id);
-            return createDruidDataSource(config);
+            return createManagedDataSource(id, config);
+        });
+    }
+
+    private ManagedDataSource createManagedDataSource(Integer id, DataSource config) {
+        registerPoolMetrics(id);
+        return new ManagedDataSource(id, config, createDruidDataSource(config), sqlDialects.forType(config.getType()),
+                properties.getDatasource().getSqlCacheLimit());
+    }
+
+    /**
+     * 注册连接池指标，取值时读取当前托管的连接池，连接池替换后指标不中断
+     */
+    private void registerPoolMetrics(Integer id) {
+        if (!meteredDataSources.add(id)) {
+            return;
+        }
+        poolGauge("query.datasource.pool.active", "连接池活跃连接数", id, DruidDataSource::getActiveCount);
+        poolGauge("query.datasource.pool.idle", "连接池空闲连接数", id, DruidDataSource::getPoolingCount);
+        poolGauge("query.datasource.pool.max", "连接池最大连接数", id, DruidDataSource::getMaxActive);
+        poolGauge("query.datasource.pool.waiting", "等待获取连接的线程数", id, DruidDataSource::getWaitThreadCount);
+        poolGauge("query.datasource.pool.wait.millis", "获取连接累计等待时间（毫秒，连接池重建后归零）", id,
+                DruidDataSource::getNotEmptyWaitMillis);
+    }
+
+    private void poolGauge(String name, String description, Integer id, ToDoubleFunction<DruidDataSource> value) {
+        queryMetrics.gauge(name, description, id, managedCache, cache -> {
+            ManagedDataSource managed = cache.get(id);
+            return managed == null ? Double.NaN : value.applyAsDouble(managed.getPool());
         });
     }
 
@@ -152,21 +490,18 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
         ds.setUrl(dsConfig.getUrl());
         ds.setUsername(dsConfig.getUsername());
         ds.setPassword(dsConfig.getPassword());
-        ds.setDriverClassName(getDriverClassName(dsConfig.getType()));
+        SqlDialect dialect = sqlDialects.forType(dsConfig.getType());
+        ds.setDriverClassName(dialect.driverClassName());
 
-        // 连接池优化配置
-        ds.setInitialSize(5);
-        ds.setMinIdle(5);
-        ds.setMaxActive(20);
-        ds.setMaxWait(60000);
+        // 连接池配置，数据源未单独配置的项使用默认值
+        ds.setInitialSize(valueOrDefault(dsConfig.getInitialSize(), properties.getDatasource().getPool().getInitialSize()));
+        applyPoolSettings(ds, dsConfig);
         ds.setTimeBetweenEvictionRunsMillis(60000);
         ds.setMinEvictableIdleTimeMillis(300000);
-        ds.setValidationQuery(getValidationQuery(dsConfig.getType()));
+        ds.setValidationQuery(dialect.validationQuery());
         ds.setTestWhileIdle(true);
         ds.setTestOnBorrow(false);
         ds.setTestOnReturn(false);
-        ds.setPoolPreparedStatements(true);
-        ds.setMaxPoolPreparedStatementPerConnectionSize(20);
 
         try {
             ds.setFilters("stat,wall,slf4j"); // wall 防火墙可额外防御注入
@@ -179,37 +514,132 @@ public class DynamicDataSourceExecutorImpl implements DynamicDataSourceExecutor
         return ds;
     }
 
-    private String getDriverClassName(String type) {
-        return switch (type.toLowerCase()) {
-            case "mysql" -> "com.mysql.cj.jdbc.Driver";
-            case "oracle" -> "oracle.jdbc.OracleDriver";
-            case "sqlserver" -> "com.microsoft.sqlserver.jdbc.SQLServerDriver";
-            case "postgresql" -> "org.postgresql.Driver";
-            case "clickhouse" -> "com.clickhouse.jdbc.ClickHouseDriver";
-            default -> throw new IllegalArgumentException("不支持的数据库类型: " + type);
-        };
+    /**
+     * 应用可在运行期调整的连接池配置
+     * 缩小连接数时先调整 minIdle，避免 minIdle 大于 maxActive
+     */
+    private void applyPoolSettings(DruidDataSource ds, DataSource dsConfig) {
+        QueryServerProperties.Pool pool = properties.getDatasource().getPool();
+        int maxActive = Math.max(1, valueOrDefault(dsConfig.getMaxActive(), pool.getMaxActive()));
+        int minIdle = Math.min(maxActive, valueOrDefault(dsConfig.getMinIdle(), pool.getMinIdle()));
+        if (maxActive < ds.getMinIdle()) {
+            ds.setMinIdle(minIdle);
+            ds.setMaxActive(maxActive);
+        } else {
+            ds.setMaxActive(maxActive);
+            ds.setMinIdle(minIdle);
+        }
+        ds.setMaxWait(valueOrDefault(dsConfig.getMaxWait(), pool.getMaxWait()));
+
+        int psCacheSize = valueOrDefault(dsConfig.getPsCacheSize(), pool.getPsCacheSize());
+        ds.setPoolPreparedStatements(psCacheSize > 0);
+        if (psCacheSize > 0) {
+            ds.setMaxPoolPreparedStatementPerConnectionSize(psCacheSize);
+        }
+    }
+
+    /**
+     * 预热连接池：同时借出 minIdle 个连接后归还，使其留在连接池中
+     */
+    @Override
+    public void warmUp(Integer dataSourceId) {
+        DruidDataSource pool = getManagedDataSource(dataSourceId).getPool();
+        int count = Math.min(Math.max(1, pool.getMinIdle()), pool.getMaxActive());
+        List<Connection> connections = new ArrayList<>(count);
+        try {
+            pool.init();
+            for (int i = 0; i < count; i++) {
+                connections.add(pool.getConnection());
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("数据源预热失败: " + e.getMessage(), e);
+        } finally {
+            connections.forEach(connection -> {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("归还预热连接时异常", e);
+                }
+            });
+        }
+        log.info("数据源预热完成: {}，连接数 {}", dataSourceId, pool.getPoolingCount());
+    }
+
+    /**
+     * 数据源配置变更后刷新
+     * <ul>
+     *     <li>已删除：移出缓存，等待执行中的查询结束后关闭连接池</li>
+     *     <li>连接信息变化：创建新连接池原子替换，旧连接池排空后关闭</li>
+     *     <li>仅连接池参数变化：直接调整运行中的连接池</li>
+     * </ul>
+     * 数据源隔离按新的最大连接数重建
+     */
+    @Override
+    public synchronized void refreshDataSource(Integer dataSourceId) {
+        ManagedDataSource current = managedCache.get(dataSourceId);
+        dataSourceLimiter.evict(dataSourceId);
+        if (current == null) {
+            // 尚未使用，下次按最新配置创建
+            return;
+        }
+
+        DataSource config = dataSourceService.getById(dataSourceId);
+        if (config == null) {
+            managedCache.remove(dataSourceId, current);
+            retire(current, "数据源已删除");
+            return;
+        }
+        if (current.sameConnection(config)) {
+            applyPoolSettings(current.getPool(), config);
+            current.setSlowQueryMillis(config.getSlowQueryMillis());
+            log.info("数据源连接池配置已更新: {} maxActive={}, minIdle={}, maxWait={}", config.getName(),
+                    current.getPool().getMaxActive(), current.getPool().getMinIdle(), current.getPool().getMaxWait());
+            return;
+        }
+        // 新连接池创建失败时保留旧连接池
+        managedCache.put(dataSourceId, createManagedDataSource(dataSourceId, config));
+        dataSourceLimiter.evict(dataSourceId);
+        retire(current, "连接配置已变更");
+    }
+
+    /**
+     * 关闭长时间未使用的连接池，下次使用时重新创建
+     */
+    private void closeIdleDataSources() {
+        long idleTimeout = properties.getDatasource().getIdleTimeoutMillis();
+        managedCache.forEach((id, managed) -> {
+            if (managed.isIdle(idleTimeout) && managedCache.remove(id, managed)) {
+                dataSourceLimiter.evict(id);
+                retire(managed, "空闲超过 " + idleTimeout + "ms");
+            }
+        });
+    }
+
+    /**
+     * 在后台排空并关闭连接池
+     */
+    private void retire(ManagedDataSource managed, String reason) {
+        log.info("停用数据源连接池: {}，原因: {}", managed.getConfig().getName(), reason);
+        long drainTimeout = properties.getDatasource().getDrainTimeoutMillis();
+        lifecycleExecutor.execute(() -> managed.retire(drainTimeout));
     }
 
-    private String getValidationQuery(String type) {
-        return switch (type.toLowerCase()) {
-            case "mysql", "postgresql", "sqlserver", "clickhouse" -> "SELECT 1";
-            case "oracle" -> "SELECT 1 FROM DUAL";
-            default -> "SELECT 1";
-        };
+    private int valueOrDefault(Integer value, int defaultValue) {
+        return value == null || value < 0 ? defaultValue : value;
     }
 
     @PreDestroy
     public void destroy() {
         log.info("正在关闭所有动态数据源...");
-        dataSourceCache.values().forEach(ds -> {
+        lifecycleExecutor.shutdownNow();
+        managedCache.values().forEach(managed -> {
             try {
-                ds.close();
+                managed.getPool().close();
             } catch (Exception e) {
                 log.warn("关闭数据源时异常", e);
             }
         });
-        dataSourceCache.clear();
-        jdbcTemplateCache.clear();
+        managedCache.clear();
         log.info("所有动态数据源已安全关闭");
     }
-}
\ No newline at end of file
+}
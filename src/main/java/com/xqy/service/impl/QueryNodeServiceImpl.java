@@ -1,26 +1,24 @@
 package com.xqy.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xqy.dto.QueryNodeTreeDto;
-import com.xqy.entity.DataSource;
 import com.xqy.entity.QueryNode;
-import com.xqy.entity.QueryNodeRelation;
-import com.xqy.enums.RelationType;
 import com.xqy.mapper.QueryNodeMapper;
-import com.xqy.service.DataSourceService;
-import com.xqy.service.QueryNodeRelationService;
 import com.xqy.service.QueryNodeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,46 +29,61 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class QueryNodeServiceImpl extends ServiceImpl<QueryNodeMapper, QueryNode> implements QueryNodeService {
 
+    /**
+     * 构建单棵执行树
+     * 逐层按父节点ID批量查询，只加载这一棵树的节点
+     */
     @Override
     public QueryNodeTreeDto buildExecutionTree(Long rootNodeId) {
-        List<QueryNodeTreeDto> queryNodeTreeDtoList = buildExecutionTree(rootNodeId, true, 0);
-        if (!CollectionUtils.isEmpty(queryNodeTreeDtoList)) {
-            return queryNodeTreeDtoList.get(0);
+        QueryNode root = getById(rootNodeId);
+        if (root == null) {
+            return null;
         }
-        return null;
+        return assembleRoot(root, loadDescendants(List.of(root)));
     }
 
     /**
-     * 根据根节点ID构建执行树
+     * 批量构建执行树
+     * 一次查询加载全部节点，按父节点ID分组后在内存中组装，避免逐节点查询子节点
      */
     @Override
-    public List<QueryNodeTreeDto> buildExecutionTree(Long rootNodeId, boolean isRootNode, int level) {
-        log.info("开始构建执行树，根节点ID: {}", rootNodeId);
-
-
+    public Map<Long, QueryNodeTreeDto> buildExecutionTrees(Collection<Long> rootNodeIds) {
+        log.info("开始构建执行树，根节点数量: {}", rootNodeIds.size());
+
+        List<QueryNode> allNodes = list();
+        Map<Long, QueryNode> nodeMap = allNodes.stream().collect(Collectors.toMap(QueryNode::getId, Function.identity(), (a, b) -> a));
+        Map<Long, List<QueryNode>> childrenMap = groupByParentId(allNodes);
+
+        Map<Long, QueryNodeTreeDto> trees = new LinkedHashMap<>();
+        for (Long rootNodeId : rootNodeIds) {
+            QueryNode root = nodeMap.get(rootNodeId);
+            if (root == null) {
+                log.warn("根节点不存在: {}", rootNodeId);
+                continue;
+            }
+            QueryNodeTreeDto tree = assembleRoot(root, childrenMap);
+            if (tree != null) {
+                trees.put(rootNodeId, tree);
+            }
+        }
 
-        List<QueryNode> nodeList = isRootNode ? lambdaQuery().eq(QueryNode::getId, rootNodeId).list() : lambdaQuery().eq(QueryNode::getParentId, rootNodeId).list();
+        log.info("执行树构建完成，共 {} 棵，节点总数: {}", trees.size(), allNodes.size());
+        return trees;
+    }
 
-        if (CollectionUtils.isEmpty(nodeList)) {
+    /**
+     * 根据根节点ID构建执行树
+     */
+    @Override
+    public List<QueryNodeTreeDto> buildExecutionTree(Long rootNodeId, boolean isRootNode, int level) {
+        List<QueryNode> nodeList = isRootNode
+                ? lambdaQuery().eq(QueryNode::getId, rootNodeId).list()
+                : lambdaQuery().eq(QueryNode::getParentId, rootNodeId).list();
+        if (nodeList.isEmpty()) {
             return List.of();
         }
-        // 转换为DTO
-        List<QueryNodeTreeDto> rootDtoList = nodeList.stream().map(node -> convertToDto(node, level)).toList();
-
-        rootDtoList.forEach(rootDto -> {
-            List<QueryNodeTreeDto> children = buildExecutionTree(rootDto.getId(), false, rootDto.getLevel() + 1);
-            if (!CollectionUtils.isEmpty(children)){
-                rootDto.setHasChildren(true);
-            } else {
-                rootDto.setHasChildren(false);
-            }
-            rootDto.setChildrenList(children);
-        });
-
-        // 递归构建子节点
-
-        log.info("执行树构建完成，根节点: {}", rootDtoList.get(0).getNodeName());
-        return rootDtoList;
+        Map<Long, List<QueryNode>> childrenMap = loadDescendants(nodeList);
+        return nodeList.stream().map(node -> assemble(node, level, childrenMap, new ArrayList<>())).toList();
     }
 
     @Override
@@ -83,6 +96,73 @@ public class QueryNodeServiceImpl extends ServiceImpl<QueryNodeMapper, QueryNode
         return List.of();
     }
 
+    private Map<Long, List<QueryNode>> groupByParentId(List<QueryNode> nodes) {
+        Map<Long, List<QueryNode>> childrenMap = new HashMap<>();
+        for (QueryNode node : nodes) {
+            if (node.getParentId() != null) {
+                childrenMap.computeIfAbsent(node.getParentId(), k -> new ArrayList<>()).add(node);
+            }
+        }
+        return childrenMap;
+    }
+
+    /**
+     * 逐层按父节点ID批量查询起始节点的全部后代，按父节点ID分组
+     * 已加载的节点不再展开，循环引用由 {@link #assemble} 检测
+     */
+    private Map<Long, List<QueryNode>> loadDescendants(List<QueryNode> starts) {
+        List<QueryNode> nodes = new ArrayList<>();
+        Set<Long> loaded = new HashSet<>();
+        List<Long> frontier = new ArrayList<>();
+        for (QueryNode start : starts) {
+            if (loaded.add(start.getId())) {
+                frontier.add(start.getId());
+            }
+        }
+        while (!frontier.isEmpty()) {
+            List<Long> next = new ArrayList<>();
+            for (QueryNode child : lambdaQuery().in(QueryNode::getParentId, frontier).list()) {
+                nodes.add(child);
+                if (loaded.add(child.getId())) {
+                    next.add(child.getId());
+                }
+            }
+            frontier = next;
+        }
+        return groupByParentId(nodes);
+    }
+
+    /**
+     * 组装一棵执行树，存在循环引用时记录节点路径并返回 null，不影响其他执行树
+     */
+    private QueryNodeTreeDto assembleRoot(QueryNode root, Map<Long, List<QueryNode>> childrenMap) {
+        try {
+            return assemble(root, 0, childrenMap, new ArrayList<>());
+        } catch (IllegalStateException e) {
+            log.error("执行树组装失败，已跳过，根节点: {} - {}", root.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 递归组装节点，path 记录当前路径上的节点ID用于检测循环引用
+     */
+    private QueryNodeTreeDto assemble(QueryNode node, int level, Map<Long, List<QueryNode>> childrenMap, List<Long> path) {
+        if (path.contains(node.getId())) {
+            throw new IllegalStateException("查询节点存在循环引用: " + path.stream().map(String::valueOf)
+                    .collect(Collectors.joining(" -> ")) + " -> " + node.getId());
+        }
+        path.add(node.getId());
+        QueryNodeTreeDto dto = convertToDto(node, level);
+        List<QueryNodeTreeDto> children = new ArrayList<>();
+        for (QueryNode child : childrenMap.getOrDefault(node.getId(), List.of())) {
+            children.add(assemble(child, level + 1, childrenMap, path));
+        }
+        dto.setHasChildren(!children.isEmpty());
+        dto.setChildrenList(children);
+        path.remove(path.size() - 1);
+        return dto;
+    }
 
     /**
      * 将QueryNode转换为QueryNodeTreeDto
@@ -1,7 +1,6 @@
 package com.xqy.service.impl.handler;
 
-import com.xqy.dto.QueryNodeTreeDto;
-import com.xqy.entity.ApiInfo;
+import com.xqy.plan.ExecutionPlan;
 import com.xqy.service.DynamicDataSourceExecutor;
 
 import java.util.Map;
@@ -13,12 +12,12 @@ public interface ApiHandler {
     /**
      * 处理API请求
      *
-     * @param apiInfo API信息
-     * @param queryNode 查询节点
+     * @param plan               API执行计划
      * @param dataSourceExecutor 数据源执行器
      * @param params             请求参数
+     * @param deadline           请求执行截止时间
      * @return 处理结果
      */
-    Object handle(ApiInfo apiInfo, QueryNodeTreeDto queryNode,
-                  DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params);
+    Object handle(ExecutionPlan plan, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params,
+                  QueryDeadline deadline);
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.xqy.service.impl.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xqy.plan.KeysetColumn;
+import com.xqy.util.SqlUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 游标分页的游标编解码与定位SQL
+ * <p>
+ * 游标是最后一行排序列值的 Base64 编码，每个值带类型标记，解码后按原类型绑定参数，
+ * 保证日期、数值列的比较语义与数据库一致。对客户端而言游标是不透明的。
+ * <p>
+ * 各数据库对 NULL 的排序位置不同，且 NULL 无法参与定位比较，排序列为 NULL 的行在每一页都被排除，
+ * 避免这些行只在部分页出现或导致游标无法生成。
+ *
+ * @author xqy
+ */
+final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<List<String>>> CURSOR_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * 游标值绑定参数前缀
+     */
+    static final String PARAM_PREFIX = "keyset_";
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * 由最后一行生成下一页游标
+     */
+    static String encode(Map<String, Object> row, List<KeysetColumn> columns) {
+        List<List<String>> values = new ArrayList<>(columns.size());
+        for (KeysetColumn column : columns) {
+            Object value = row.get(column.name());
+            if (value == null) {
+                throw new RuntimeException("游标分页排序列不能为空值: " + column.name());
+            }
+            values.add(encodeValue(value));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(values));
+        } catch (Exception e) {
+            throw new RuntimeException("生成分页游标失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析客户端传入的游标
+     */
+    static List<Object> decode(String cursor, int columnCount) {
+        List<List<String>> values;
+        try {
+            values = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII)), CURSOR_TYPE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (values == null || values.size() != columnCount) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        List<Object> result = new ArrayList<>(columnCount);
+        for (List<String> value : values) {
+            result.add(decodeValue(value));
+        }
+        return result;
+    }
+
+    /**
+     * 游标值按排序列顺序绑定为 {@link #PARAM_PREFIX} 加序号的参数
+     */
+    static void bind(List<Object> values, Map<String, Object> params) {
+        for (int i = 0; i < values.size(); i++) {
+            params.put(PARAM_PREFIX + i, values.get(i));
+        }
+    }
+
+    /**
+     * 游标分页SQL（不含行数限制）：外层包装后排除排序列为 NULL 的行，有游标时按排序列定位，再按排序列排序
+     * 内层SQL的排序不再生效，去掉以兼容不允许子查询排序的数据库（如 SQL Server）
+     *
+     * @param seek 是否带游标定位
+     */
+    static String pageSql(String sql, List<KeysetColumn> columns, boolean seek) {
+        StringBuilder pageSql = new StringBuilder("SELECT * FROM (").append(SqlUtils.stripOrderBy(sql)).append(") keyset_page WHERE ");
+        for (KeysetColumn column : columns) {
+            pageSql.append(column.name()).append(" IS NOT NULL AND ");
+        }
+        if (seek) {
+            pageSql.append(seekPredicate(columns));
+        } else {
+            pageSql.setLength(pageSql.length() - " AND ".length());
+        }
+        pageSql.append(" ORDER BY ");
+        for (int i = 0; i < columns.size(); i++) {
+            KeysetColumn column = columns.get(i);
+            pageSql.append(i == 0 ? "" : ", ").append(column.name()).append(column.descending() ? " DESC" : " ASC");
+        }
+        return pageSql.toString();
+    }
+
+    /**
+     * 定位条件：(c1 > :k0) OR (c1 = :k0 AND c2 > :k1) ...，降序列使用 <
+     * 展开形式兼容各排序列方向不一致的情况
+     */
+    static String seekPredicate(List<KeysetColumn> columns) {
+        StringBuilder predicate = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            predicate.append(i == 0 ? "(" : " OR (");
+            for (int j = 0; j < i; j++) {
+                predicate.append(columns.get(j).name()).append(" = :").append(PARAM_PREFIX).append(j).append(" AND ");
+            }
+            KeysetColumn column = columns.get(i);
+            predicate.append(column.name()).append(column.descending() ? " < :" : " > :").append(PARAM_PREFIX).append(i).append(')');
+        }
+        return predicate.append(')').toString();
+    }
+
+    private static List<String> encodeValue(Object value) {
+        if (value instanceof Number) {
+            return List.of("n", new BigDecimal(value.toString()).toPlainString());
+        }
+        if (value instanceof Timestamp timestamp) {
+            return List.of("t", timestamp.toString());
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return List.of("t", Timestamp.valueOf(dateTime).toString());
+        }
+        if (value instanceof java.sql.Date || value instanceof LocalDate) {
+            return List.of("d", value.toString());
+        }
+        if (value instanceof Boolean) {
+            return List.of("b", value.toString());
+        }
+        return List.of("s", value.toString());
+    }
+
+    private static Object decodeValue(List<String> value) {
+        if (value == null || value.size() != 2 || value.get(1) == null) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        String text = value.get(1);
+        try {
+            return switch (value.get(0)) {
+                case "n" -> new BigDecimal(text);
+                case "t" -> Timestamp.valueOf(text);
+                case "d" -> java.sql.Date.valueOf(text);
+                case "b" -> Boolean.valueOf(text);
+                case "s" -> text;
+                default -> throw new IllegalArgumentException("无效的分页游标");
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
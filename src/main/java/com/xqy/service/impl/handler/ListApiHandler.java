@@ -1,32 +1,54 @@
 package com.xqy.service.impl.handler;
 
-import com.xqy.dto.QueryNodeTreeDto;
-import com.xqy.entity.ApiInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.xqy.common.StreamingBody;
+import com.xqy.config.QueryServerProperties;
 import com.xqy.enums.ApiType;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.plan.PlanNode;
 import com.xqy.service.DynamicDataSourceExecutor;
+import com.xqy.trace.QueryContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 列表API处理器
+ * 开启流式输出的API返回 {@link StreamingBody}，按批读取、执行子节点并写出，内存占用与结果总行数无关
  */
 @Slf4j
 @Component("LIST")
-public record ListApiHandler() implements ApiHandler {
+public record ListApiHandler(NodeExecutor nodeExecutor, QueryServerProperties properties) implements ApiHandler {
 
     @Override
-    public Object handle(ApiInfo apiInfo, QueryNodeTreeDto queryNode, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params) {
-        log.info("执行列表API: {}", apiInfo.getApiName());
+    public Object handle(ExecutionPlan plan, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params,
+                         QueryDeadline deadline) {
+        log.debug("执行列表API: {}", plan.apiInfo().getApiName());
+
+        if (Boolean.TRUE.equals(plan.apiInfo().getStreaming())) {
+            // 写出响应时已离开请求的执行上下文，重新进入以限制等待许可与连接的时间
+            return (StreamingBody) generator -> {
+                try (QueryContext ignored = QueryContext.open(plan.apiInfo().getApiPath(), plan.root().getId(), null, deadline)) {
+                    stream(plan.root(), dataSourceExecutor, params, deadline, generator);
+                }
+            };
+        }
 
         try {
-            String sql = queryNode.getSqlContent();
+            PlanNode queryNode = plan.root();
+            String sql = queryNode.getSql();
             Integer dataSourceId = queryNode.getDataSourceId();
             // 执行查询 - 返回多行结果
-            List<Map<String, Object>> list = dataSourceExecutor.executeQueryForList(dataSourceId, sql, params);
-            NodeExecutor.execute(list, queryNode, dataSourceExecutor, params);
+            int timeout = deadline.statementTimeout(queryNode.getQueryTimeoutSeconds());
+            List<Map<String, Object>> list = queryNode.isColumnar()
+                    ? dataSourceExecutor.executeQueryForColumnar(dataSourceId, sql, params, timeout)
+                    : dataSourceExecutor.executeQueryForList(dataSourceId, sql, params, timeout);
+            nodeExecutor.execute(list, queryNode, dataSourceExecutor, params, deadline);
             return list;
 
         } catch (Exception e) {
@@ -34,4 +56,48 @@ public record ListApiHandler() implements ApiHandler {
             throw new RuntimeException("列表查询失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 流式执行：边读取根节点结果边写出数组元素
+     */
+    private void stream(PlanNode queryNode, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params,
+                        QueryDeadline deadline, JsonGenerator generator) throws IOException {
+        int chunkSize = Math.max(1, properties.getStreaming().getChunkSize());
+        List<Map<String, Object>> chunk = new ArrayList<>(chunkSize);
+
+        generator.writeStartArray();
+        try {
+            int timeout = deadline.statementTimeout(queryNode.getQueryTimeoutSeconds());
+            dataSourceExecutor.executeQueryForStream(queryNode.getDataSourceId(), queryNode.getSql(), params, timeout, row -> {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, queryNode, dataSourceExecutor, params, deadline, generator);
+                }
+            });
+            writeChunk(chunk, queryNode, dataSourceExecutor, params, deadline, generator);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * 对一批根节点行执行子节点后写出并清空
+     */
+    private void writeChunk(List<Map<String, Object>> chunk, PlanNode queryNode, DynamicDataSourceExecutor dataSourceExecutor,
+                            Map<String, Object> params, QueryDeadline deadline, JsonGenerator generator) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        nodeExecutor.execute(chunk, queryNode, dataSourceExecutor, params, deadline);
+        try {
+            for (Map<String, Object> row : chunk) {
+                generator.writeObject(row);
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunk.clear();
+    }
+}
@@ -1,63 +1,444 @@
 package com.xqy.service.impl.handler;
 
-import com.xqy.dto.QueryNodeTreeDto;
-import com.xqy.enums.QueryNodeType;
+import com.xqy.cache.NodeResultCache;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.datasource.ColumnarResult;
+import com.xqy.metrics.QueryMetrics;
+import com.xqy.plan.PlanNode;
 import com.xqy.service.DynamicDataSourceExecutor;
+import com.xqy.trace.QueryContext;
+import com.xqy.util.SqlUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedCaseInsensitiveMap;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * 节点执行器
+ * <p>
+ * 按层执行子节点：同一子节点在所有父行上的查询先按绑定参数分组去重，
+ * 可批量的节点把 "列 = :key" 改写为 "列 IN (:key)" 一次查询整批父行，过滤列以保留别名一并返回，
+ * 再按该别名在内存中哈希关联回父行（可批量的条件见 {@link SqlUtils#batchKeyColumns(String)}）。
+ * 开启并行后，互不依赖的兄弟节点、批次与逐行查询通过 {@link NodeTaskExecutor} 并行执行。
+ * 配置了缓存时间的节点先按绑定参数查 {@link NodeResultCache}，只查询未命中的分组。
+ * 每条语句的超时受 {@link QueryDeadline} 限制，请求预算耗尽后剩余节点不再执行。
+ * 每个子节点的耗时与返回行数记录到 {@link QueryMetrics}。
  *
  * @author xqy
  */
+@Slf4j
+@Component
+@RequiredArgsConstructor
 public class NodeExecutor {
 
-    public static void execute(List<Map<String, Object>> baseResult, QueryNodeTreeDto queryNode, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params) {
-        if (!queryNode.getHasChildren() || queryNode.getChildrenList() == null || queryNode.getChildrenList().isEmpty()){
+    private final QueryServerProperties properties;
+    private final NodeTaskExecutor taskExecutor;
+    private final NodeResultCache nodeResultCache;
+    private final QueryMetrics queryMetrics;
+
+    public void execute(List<Map<String, Object>> baseResult, PlanNode queryNode, DynamicDataSourceExecutor dataSourceExecutor,
+                        Map<String, Object> params, QueryDeadline deadline) {
+        if (baseResult == null || baseResult.isEmpty()) {
             return;
         }
-        List<QueryNodeTreeDto> childrenList = queryNode.getChildrenList();
-
-        for (QueryNodeTreeDto child : childrenList) {
-            for (Map<String, Object> row : baseResult){
-                Map<String, Object> childParams = new HashMap<>(row);
-                childParams.putAll(params);
-
-                List<Map<String, Object>> childExecuteResult = dataSourceExecutor.executeQueryForList(child.getDataSourceId(), child.getSqlContent(), childParams);
-                // 节点执行结果
-                Object childExecuteResultValue = switch (child.getQueryNodeType()) {
-                    case ROWS -> childExecuteResult;
-                    case VALUE ->
-                        // 取第一行第一列的值
-                            childExecuteResult.get(0).values().iterator().next();
-                    case COLUMN -> childExecuteResult.stream()
-                            .map(obj -> obj.values().iterator().next())
-                            .toList();
-                    case ROW ->
-                            childExecuteResult.get(0);
-                };
-                // 关系处理
-                switch (child.getRelationType()){
-                    case CHILD:
-                        row.put(child.getBindingName(), childExecuteResultValue);
-                        break;
-                    case SIBLING:
-                        if (child.getQueryNodeType().equals(QueryNodeType.ROW) && childExecuteResult instanceof Map<?,?>){
-                            row.putAll((Map) childExecuteResultValue);
-                        }
-                        break;
-                }
+        Map<String, Object> scopeParams = params == null ? Map.of() : params;
+        List<RowScope> parents = new ArrayList<>(baseResult.size());
+        for (Map<String, Object> row : baseResult) {
+            parents.add(new RowScope(row, scopeParams));
+        }
+        executeChildren(parents, queryNode, dataSourceExecutor, deadline);
+    }
+
+    private void executeChildren(List<RowScope> parents, PlanNode queryNode, DynamicDataSourceExecutor dataSourceExecutor,
+                                 QueryDeadline deadline) {
+        if (!queryNode.hasChildren() || parents.isEmpty()) {
+            return;
+        }
+        // 未开启并行时逐个节点执行，保持原有顺序语义
+        List<List<PlanNode>> waves = taskExecutor.isParallel()
+                ? queryNode.getChildWaves()
+                : queryNode.getChildren().stream().map(List::of).toList();
+        for (List<PlanNode> wave : waves) {
+            deadline.check();
+            // 同一批次的子节点互不依赖：并行查询，串行回填父行，再并行处理各自的子树
+            List<ChildExecution> executions = taskExecutor.invokeAll(wave.stream()
+                    .map(child -> (Callable<ChildExecution>) () -> queryMetrics.recordNode(child,
+                            () -> traceChild(parents, child, dataSourceExecutor, deadline)))
+                    .toList());
+
+            List<Callable<Void>> subtrees = new ArrayList<>();
+            for (ChildExecution execution : executions) {
+                List<RowScope> childRows = applyChild(execution);
+                PlanNode child = execution.child();
                 // 递归处理
-                if (List.of(QueryNodeType.ROWS, QueryNodeType.ROW).contains(child.getQueryNodeType())){
-                    execute(childExecuteResult, child, dataSourceExecutor, childParams);
+                if (!childRows.isEmpty()) {
+                    subtrees.add(() -> {
+                        executeChildren(childRows, child, dataSourceExecutor, deadline);
+                        return null;
+                    });
+                }
+            }
+            taskExecutor.invokeAll(subtrees);
+        }
+    }
+
+    /**
+     * 在子节点的上下文中执行（语句按节点归属），开启追踪时记录父行数、分组数与耗时
+     */
+    private ChildExecution traceChild(List<RowScope> parents, PlanNode child, DynamicDataSourceExecutor dataSourceExecutor,
+                                      QueryDeadline deadline) {
+        QueryContext context = QueryContext.current();
+        if (context == null) {
+            return fetchChild(parents, child, dataSourceExecutor, deadline);
+        }
+        long start = System.nanoTime();
+        try (QueryContext ignored = context.enter(child.getId())) {
+            ChildExecution execution = fetchChild(parents, child, dataSourceExecutor, deadline);
+            if (context.getTrace() != null) {
+                context.getTrace().node(child, parents.size(), execution.groups().size(), System.nanoTime() - start);
+            }
+            return execution;
+        }
+    }
+
+    /**
+     * 在所有父行上执行一个子节点的查询（只读父行，不回填）
+     */
+    private ChildExecution fetchChild(List<RowScope> parents, PlanNode child, DynamicDataSourceExecutor dataSourceExecutor,
+                                      QueryDeadline deadline) {
+        List<String> paramNames = child.getParamNames();
+
+        // 绑定参数相同的父行只查询一次
+        Map<List<Object>, BindingGroup> groups = new LinkedHashMap<>();
+        for (RowScope parent : parents) {
+            Map<String, Object> childParams = new HashMap<>(parent.row());
+            childParams.putAll(parent.params());
+            List<Object> key = new ArrayList<>(paramNames.size());
+            for (String name : paramNames) {
+                key.add(normalize(childParams.get(name)));
+            }
+            groups.computeIfAbsent(key, k -> new BindingGroup(k, childParams)).members().add(new RowScope(parent.row(), childParams));
+        }
+
+        List<BindingGroup> groupList = new ArrayList<>(groups.values());
+        List<BindingGroup> missing = groupList;
+        if (child.isCacheable()) {
+            groupList.forEach(group -> group.result = nodeResultCache.get(child, group.key()));
+            missing = groupList.stream().filter(group -> group.result == null).toList();
+        }
+
+        List<String> varying = varyingParameters(paramNames, missing);
+        if (isBatchable(child, varying)) {
+            executeBatch(child, varying, missing, dataSourceExecutor, deadline);
+        }
+        taskExecutor.invokeAll(missing.stream()
+                .filter(group -> group.result == null)
+                .map(group -> (Callable<Void>) () -> {
+                    group.result = query(dataSourceExecutor, deadline, child, child.getSql(), group.params());
+                    return null;
+                })
+                .toList());
+
+        if (child.isCacheable()) {
+            missing.forEach(group -> nodeResultCache.put(child, group.key(), group.result));
+        }
+        queryMetrics.recordNodeRows(child, groupList.stream().mapToLong(group -> group.result == null ? 0 : group.result.size()).sum());
+        return new ChildExecution(child, groupList);
+    }
+
+    /**
+     * 回填子节点结果到父行，返回子节点结果行（供下一层递归使用）
+     */
+    private List<RowScope> applyChild(ChildExecution execution) {
+        PlanNode child = execution.child();
+        List<RowScope> childRows = new ArrayList<>();
+        for (BindingGroup group : execution.groups()) {
+            boolean shared = false;
+            for (RowScope member : group.members()) {
+                // 同组多个父行共享结果且还有下层节点时复制行，避免下层回填互相覆盖
+                List<Map<String, Object>> rows = shared && child.hasChildren() ? copyRows(group.result) : group.result;
+                shared = true;
+                child.getBinding().bind(member.row(), child.getBindingName(), child.getShape().shape(rows));
+                if (child.hasChildren()) {
+                    child.getShape().childRows(rows).forEach(row -> childRows.add(new RowScope(row, member.params())));
+                }
+            }
+        }
+        return childRows;
+    }
+
+    /**
+     * 批量执行：按 batchSize 切分分组，每批一次查询后按过滤列别名哈希关联；无法关联的批次保留为空，回退逐组查询
+     */
+    private void executeBatch(PlanNode child, List<String> varying, List<BindingGroup> groups,
+                              DynamicDataSourceExecutor dataSourceExecutor, QueryDeadline deadline) {
+        String batchSql = child.getBatchSql(varying);
+        int[] varyingIndexes = varying.stream().mapToInt(child.getParamNames()::indexOf).toArray();
+        int batchSize = Math.max(1, properties.getExecution().getBatchSize());
+
+        List<BindingGroup> pending = new ArrayList<>();
+        for (BindingGroup group : groups) {
+            if (hasNullBinding(group, varyingIndexes)) {
+                // "= NULL" 不会命中任何行
+                group.result = new ArrayList<>();
+            } else {
+                pending.add(group);
+            }
+        }
+
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<BindingGroup> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            chunks.add(() -> {
+                executeChunk(child, batchSql, varying, varyingIndexes, chunk, dataSourceExecutor, deadline);
+                return null;
+            });
+        }
+        taskExecutor.invokeAll(chunks);
+    }
+
+    private void executeChunk(PlanNode child, String batchSql, List<String> varying, int[] varyingIndexes,
+                              List<BindingGroup> chunk, DynamicDataSourceExecutor dataSourceExecutor, QueryDeadline deadline) {
+        Map<String, Object> batchParams = new HashMap<>(chunk.get(0).params());
+        for (String name : varying) {
+            Set<Object> values = new LinkedHashSet<>();
+            chunk.forEach(group -> values.add(group.params().get(name)));
+            batchParams.put(name, new ArrayList<>(values));
+        }
+
+        List<Map<String, Object>> rows;
+        try {
+            rows = query(dataSourceExecutor, deadline, child, batchSql, batchParams);
+        } catch (Exception e) {
+            if (QueryDeadline.isTimeout(e)) {
+                // 超时回退逐行只会更慢
+                throw e;
+            }
+            if (isRejectedByDatabase(e)) {
+                // 改写后的语句本身无法执行，重试也不会成功：此后该节点直接逐行查询，只记录一次
+                if (child.rejectBatch(varying)) {
+                    log.warn("节点批量查询被数据库拒绝，此后改为逐行查询: {}", child.getNodeName(), e);
+                }
+            } else {
+                log.warn("节点批量查询失败，回退逐行查询: {}, 原因: {}", child.getNodeName(), e.getMessage());
+            }
+            return;
+        }
+        Map<List<Object>, List<Integer>> joined = hashJoin(rows, varying.size(), varyingIndexes, chunk);
+        if (joined == null) {
+            log.debug("节点批量结果无法按绑定列关联，回退逐行查询: {}", child.getNodeName());
+            return;
+        }
+        List<String> aliases = new ArrayList<>(varying.size());
+        for (int i = 0; i < varying.size(); i++) {
+            aliases.add(SqlUtils.BATCH_KEY_ALIAS_PREFIX + i);
+        }
+        if (rows instanceof ColumnarResult columnar) {
+            // 列式结果按分组拆分为各自的列式结果，别名列在拆分时去掉
+            for (BindingGroup group : chunk) {
+                int[] members = joined.get(joinKey(group, varyingIndexes)).stream().mapToInt(Integer::intValue).toArray();
+                group.result = columnar.select(members, aliases);
+            }
+            return;
+        }
+        for (Map<String, Object> row : rows) {
+            aliases.forEach(row::remove);
+        }
+        for (BindingGroup group : chunk) {
+            List<Integer> members = joined.get(joinKey(group, varyingIndexes));
+            List<Map<String, Object>> result = new ArrayList<>(members.size());
+            members.forEach(index -> result.add(rows.get(index)));
+            group.result = result;
+        }
+    }
+
+    /**
+     * 按过滤列别名把批量结果的行号分配到各分组
+     * <p>
+     * 多个键时 IN 的组合会查出不属于任何分组的行（如 a1 与 b2），这些行丢弃；
+     * 但每个键的值都应在本批的绑定值中，否则说明数据库比较语义与内存不一致（如大小写不敏感排序规则），返回 null 回退逐组查询。
+     * 结果缺少别名列时同样返回 null。
+     */
+    private Map<List<Object>, List<Integer>> hashJoin(List<Map<String, Object>> rows, int keyCount,
+                                                      int[] varyingIndexes, List<BindingGroup> chunk) {
+        Map<List<Object>, List<Integer>> joined = new HashMap<>();
+        List<Set<Object>> bound = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            bound.add(new HashSet<>());
+        }
+        for (BindingGroup group : chunk) {
+            List<Object> key = joinKey(group, varyingIndexes);
+            joined.put(key, new ArrayList<>());
+            for (int i = 0; i < keyCount; i++) {
+                bound.get(i).add(key.get(i));
+            }
+        }
+        for (int index = 0; index < rows.size(); index++) {
+            Map<String, Object> row = rows.get(index);
+            List<Object> key = new ArrayList<>(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                String alias = SqlUtils.BATCH_KEY_ALIAS_PREFIX + i;
+                if (!row.containsKey(alias)) {
+                    return null;
                 }
+                Object value = normalize(row.get(alias));
+                if (!bound.get(i).contains(value)) {
+                    return null;
+                }
+                key.add(value);
+            }
+            List<Integer> target = joined.get(key);
+            if (target != null) {
+                target.add(index);
             }
+        }
+        return joined;
+    }
+
+    /**
+     * 查询子节点，列式节点返回只读的列式结果；语句超时不超过请求剩余时间
+     */
+    private List<Map<String, Object>> query(DynamicDataSourceExecutor dataSourceExecutor, QueryDeadline deadline, PlanNode child,
+                                            String sql, Map<String, Object> params) {
+        int timeout = deadline.statementTimeout(child.getQueryTimeoutSeconds());
+        return child.isColumnar()
+                ? dataSourceExecutor.executeQueryForColumnar(child.getDataSourceId(), sql, params, timeout)
+                : dataSourceExecutor.executeQueryForList(child.getDataSourceId(), sql, params, timeout);
+    }
+
+    private boolean isBatchable(PlanNode child, List<String> varying) {
+        return properties.getExecution().isBatchEnabled()
+                && !varying.isEmpty()
+                && !child.isRowLimited()
+                && child.getBatchKeyColumns().keySet().containsAll(varying)
+                && !child.isBatchRejected(varying);
+    }
+
+    /**
+     * 是否数据库拒绝执行语句（语法、权限等非瞬时错误），连接失败等数据源故障不算
+     */
+    private boolean isRejectedByDatabase(Exception e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof NonTransientDataAccessResourceException);
+    }
 
+    /**
+     * 在各分组间取值不同的参数，即需要批量展开的绑定键
+     */
+    private List<String> varyingParameters(List<String> paramNames, List<BindingGroup> groups) {
+        if (groups.size() < 2) {
+            return List.of();
         }
+        List<String> varying = new ArrayList<>();
+        for (int i = 0; i < paramNames.size(); i++) {
+            Object first = groups.get(0).key().get(i);
+            for (BindingGroup group : groups) {
+                if (!Objects.equals(first, group.key().get(i))) {
+                    varying.add(paramNames.get(i));
+                    break;
+                }
+            }
+        }
+        return varying;
+    }
 
+    private boolean hasNullBinding(BindingGroup group, int[] varyingIndexes) {
+        for (int index : varyingIndexes) {
+            if (group.key().get(index) == null) {
+                return true;
+            }
+        }
+        return false;
     }
 
+    private List<Object> joinKey(BindingGroup group, int[] varyingIndexes) {
+        List<Object> key = new ArrayList<>(varyingIndexes.length);
+        for (int index : varyingIndexes) {
+            key.add(group.key().get(index));
+        }
+        return key;
+    }
+
+    private List<Map<String, Object>> copyRows(List<Map<String, Object>> rows) {
+        List<Map<String, Object>> copy = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            // 与驱动返回的行一致，列名不区分大小写
+            Map<String, Object> copied = new LinkedCaseInsensitiveMap<>(row.size());
+            copied.putAll(row);
+            copy.add(copied);
+        }
+        return copy;
+    }
+
+    /**
+     * 归一化绑定值，使不同 JDBC 数值类型（Integer/Long/BigDecimal）可以相互关联
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.stripTrailingZeros();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return Double.isFinite(d) ? BigDecimal.valueOf(d).stripTrailingZeros() : value;
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString()).stripTrailingZeros();
+        }
+        if (value instanceof CharSequence text) {
+            return text.toString();
+        }
+        return value;
+    }
+
+    /**
+     * 父行及其可见的参数作用域
+     */
+    private record RowScope(Map<String, Object> row, Map<String, Object> params) {
+    }
+
+    /**
+     * 子节点在一层父行上的查询结果
+     */
+    private record ChildExecution(PlanNode child, List<BindingGroup> groups) {
+    }
+
+    /**
+     * 绑定参数相同的一组父行
+     */
+    private static final class BindingGroup {
+        private final List<Object> key;
+        private final Map<String, Object> params;
+        private final List<RowScope> members = new ArrayList<>();
+        private volatile List<Map<String, Object>> result;
+
+        private BindingGroup(List<Object> key, Map<String, Object> params) {
+            this.key = key;
+            this.params = params;
+        }
+
+        private List<Object> key() {
+            return key;
+        }
+
+        private Map<String, Object> params() {
+            return params;
+        }
+
+        private List<RowScope> members() {
+            return members;
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package com.xqy.service.impl.handler;
+
+import com.xqy.config.QueryServerProperties;
+import com.xqy.trace.QueryContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 节点并行执行器
+ * <p>
+ * 使用有界平台线程池，并发查询数由 {@link com.xqy.datasource.DataSourceLimiter} 按数据源 maxActive 限制。
+ *
+ * @author xqy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NodeTaskExecutor {
+
+    private final QueryServerProperties properties;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    public void init() {
+        QueryServerProperties.Execution execution = properties.getExecution();
+        if (!execution.isParallelEnabled()) {
+            return;
+        }
+        int threads = Math.max(1, execution.getParallelThreads());
+        AtomicInteger index = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, execution.getParallelQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "node-exec-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        pool = executor;
+        log.info("节点并行执行已开启，线程数: {}", threads);
+    }
+
+    /**
+     * 是否并行执行
+     */
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    /**
+     * 执行一组相互独立的任务，按提交顺序返回结果
+     * <p>
+     * 当前线程会执行所有尚未被工作线程领取的任务，只等待正在运行的任务，
+     * 因此嵌套扇出即使占满线程池也不会死锁。
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (pool == null || tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+            return results;
+        }
+
+        // 把当前请求的执行上下文传递给工作线程
+        List<FutureTask<T>> futures = tasks.stream().map(QueryContext::propagate).map(FutureTask::new).toList();
+        // 第一个任务留给当前线程
+        for (int i = 1; i < futures.size(); i++) {
+            try {
+                pool.execute(futures.get(i));
+            } catch (RejectedExecutionException e) {
+                // 队列已满，由当前线程执行
+            }
+        }
+        futures.forEach(FutureTask::run);
+
+        for (FutureTask<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("节点执行被中断", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException(cause.getMessage(), cause);
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
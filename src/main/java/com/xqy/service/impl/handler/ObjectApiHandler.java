@@ -1,8 +1,8 @@
 package com.xqy.service.impl.handler;
 
-import com.xqy.dto.QueryNodeTreeDto;
-import com.xqy.entity.ApiInfo;
 import com.xqy.enums.QueryNodeType;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.plan.PlanNode;
 import com.xqy.service.DynamicDataSourceExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -13,20 +13,28 @@ import java.util.Map;
 
 /**
  * 对象API处理器
+ * 根节点查询单行，子节点结果回填到该行
  */
 @Slf4j
 @Component("MAP")
-public record ObjectApiHandler() implements ApiHandler {
+public record ObjectApiHandler(NodeExecutor nodeExecutor) implements ApiHandler {
 
     @Override
-    public Object handle(ApiInfo apiInfo, QueryNodeTreeDto queryNode, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params) {
-        log.info("执行对象API: {}", apiInfo.getApiName());
+    public Object handle(ExecutionPlan plan, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params,
+                         QueryDeadline deadline) {
+        log.debug("执行对象API: {}", plan.apiInfo().getApiName());
 
         try {
-            String sql = queryNode.getSqlContent();
+            PlanNode queryNode = plan.root();
+            String sql = queryNode.getSql();
             Integer dataSourceId = queryNode.getDataSourceId();
             // 根据节点类型执行不同的查询
-            return dataSourceExecutor.executeQueryForMap(dataSourceId, sql, params);
+            Map<String, Object> result = dataSourceExecutor.executeQueryForMap(dataSourceId, sql, params,
+                    deadline.statementTimeout(queryNode.getQueryTimeoutSeconds()));
+            if (result != null) {
+                nodeExecutor.execute(List.of(result), queryNode, dataSourceExecutor, params, deadline);
+            }
+            return result;
 
         } catch (Exception e) {
             log.error("对象查询执行失败", e);
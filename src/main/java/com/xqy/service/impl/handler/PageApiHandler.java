@@ -1,25 +1,47 @@
 package com.xqy.service.impl.handler;
 
-import com.xqy.dto.QueryNodeTreeDto;
-import com.xqy.entity.ApiInfo;
+import com.xqy.cache.PageCountCache;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.datasource.dialect.SqlDialect;
+import com.xqy.enums.CountStrategy;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.plan.KeysetColumn;
+import com.xqy.plan.PlanNode;
 import com.xqy.service.DynamicDataSourceExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 /**
  * 分页API处理器
+ * 支持页码分页与游标分页，分页与统计SQL由数据源方言生成；游标分页按排序列生成定位条件，翻页深度不影响查询耗时
+ * 页码分页的总数统计策略见 {@link CountStrategy}
+ * 子节点只对当前页的记录执行
  */
 @Slf4j
 @Component("PAGE")
-public record PageApiHandler() implements ApiHandler {
+public record PageApiHandler(NodeExecutor nodeExecutor, NodeTaskExecutor taskExecutor, PageCountCache pageCountCache,
+                             QueryServerProperties properties) implements ApiHandler {
+
+    /**
+     * 游标参数名
+     */
+    private static final String CURSOR_PARAM = "cursor";
 
     @Override
-    public Object handle(ApiInfo apiInfo, QueryNodeTreeDto queryNode, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params) {
-        log.info("执行分页API: {}", apiInfo.getApiName());
+    public Object handle(ExecutionPlan plan, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params,
+                         QueryDeadline deadline) {
+        log.debug("执行分页API: {}", plan.apiInfo().getApiName());
+
+        if (!plan.keysetColumns().isEmpty()) {
+            return handleKeyset(plan, dataSourceExecutor, params, deadline);
+        }
 
         // 获取分页参数
         int current = params.containsKey("current") ? Integer.parseInt(params.get("current").toString()) : 1;
@@ -27,18 +49,63 @@ public record PageApiHandler() implements ApiHandler {
         int offset = (current - 1) * size;
 
         try {
-            String sql = queryNode.getSqlContent();
+            PlanNode queryNode = plan.root();
+            String sql = queryNode.getSql();
             Integer dataSourceId = queryNode.getDataSourceId();
+            SqlDialect dialect = dataSourceExecutor.getDialect(dataSourceId);
+            CountStrategy strategy = plan.apiInfo().getCountStrategy() == null
+                    ? CountStrategy.ALWAYS : plan.apiInfo().getCountStrategy();
+
+            if (strategy == CountStrategy.NONE) {
+                // 多取一行判断是否有下一页
+                List<Map<String, Object>> records = dataSourceExecutor.executeQueryForList(
+                        dataSourceId, dialect.pageSql(sql), pageParams(params, offset, size + 1),
+                        deadline.statementTimeout(queryNode.getQueryTimeoutSeconds()));
+                boolean hasNext = records.size() > size;
+                if (hasNext) {
+                    records = new ArrayList<>(records.subList(0, size));
+                }
+                nodeExecutor.execute(records, queryNode, dataSourceExecutor, params, deadline);
+                return buildPageResult(records, current, size, hasNext);
+            }
 
             // 构建分页SQL
-            String countSql = "SELECT COUNT(*) FROM (" + sql + ") AS temp_count";
-            String dataSql = sql + " LIMIT " + size + " OFFSET " + offset;
+            String countSql = dialect.countSql(sql);
+            String dataSql = dialect.pageSql(sql);
+            Map<String, Object> dataParams = pageParams(params, offset, size);
+            Supplier<Long> counter = () -> {
+                Object totalObj = dataSourceExecutor.executeQueryForObject(dataSourceId, countSql, params,
+                        deadline.statementTimeout(queryNode.getQueryTimeoutSeconds()));
+                return totalObj != null ? Long.parseLong(totalObj.toString()) : 0L;
+            };
+            Supplier<List<Map<String, Object>>> loader = () -> dataSourceExecutor.executeQueryForList(dataSourceId, dataSql,
+                    dataParams, deadline.statementTimeout(queryNode.getQueryTimeoutSeconds()));
 
             // 执行查询
-            Object totalObj = dataSourceExecutor.executeQueryForObject(dataSourceId, countSql, params);
-            long total = totalObj != null ? Long.parseLong(totalObj.toString()) : 0;
-            List<Map<String, Object>> records = dataSourceExecutor.executeQueryForList(dataSourceId, dataSql, params);
+            long total;
+            List<Map<String, Object>> records;
+            switch (strategy) {
+                case CACHED -> {
+                    Integer ttl = plan.apiInfo().getCountCacheTtlSeconds();
+                    int ttlSeconds = ttl != null && ttl > 0 ? ttl : properties.getPageCount().getDefaultTtlSeconds();
+                    total = pageCountCache.get(plan.apiInfo().getId(), params, ttlSeconds, counter);
+                    records = loader.get();
+                }
+                case PARALLEL -> {
+                    // 未开启节点并行时按顺序执行
+                    List<Object> results = taskExecutor.invokeAll(List.<Callable<Object>>of(
+                            counter::get,
+                            loader::get));
+                    total = (Long) results.get(0);
+                    records = castRows(results.get(1));
+                }
+                default -> {
+                    total = counter.get();
+                    records = loader.get();
+                }
+            }
 
+            nodeExecutor.execute(records, queryNode, dataSourceExecutor, params, deadline);
             return buildPageResult(records, total, current, size);
 
         } catch (Exception e) {
@@ -47,6 +114,61 @@ public record PageApiHandler() implements ApiHandler {
         }
     }
 
+    /**
+     * 在请求参数上附加分页参数
+     */
+    private Map<String, Object> pageParams(Map<String, Object> params, int offset, int limit) {
+        Map<String, Object> pageParams = new HashMap<>(params);
+        pageParams.put(SqlDialect.OFFSET_PARAM, offset);
+        pageParams.put(SqlDialect.LIMIT_PARAM, limit);
+        return pageParams;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> castRows(Object rows) {
+        return (List<Map<String, Object>>) rows;
+    }
+
+    /**
+     * 游标分页：多取一行判断是否有下一页，不执行COUNT
+     */
+    private Object handleKeyset(ExecutionPlan plan, DynamicDataSourceExecutor dataSourceExecutor, Map<String, Object> params,
+                                QueryDeadline deadline) {
+        List<KeysetColumn> columns = plan.keysetColumns();
+        int size = params.containsKey("size") ? Integer.parseInt(params.get("size").toString()) : 10;
+        Object cursor = params.get(CURSOR_PARAM);
+
+        try {
+            PlanNode queryNode = plan.root();
+            SqlDialect dialect = dataSourceExecutor.getDialect(queryNode.getDataSourceId());
+            Map<String, Object> queryParams = pageParams(params, 0, size + 1);
+
+            boolean seek = cursor != null && !cursor.toString().isEmpty();
+            if (seek) {
+                KeysetCursor.bind(KeysetCursor.decode(cursor.toString(), columns.size()), queryParams);
+            }
+            String dataSql = KeysetCursor.pageSql(queryNode.getSql(), columns, seek);
+
+            List<Map<String, Object>> records = dataSourceExecutor.executeQueryForList(
+                    queryNode.getDataSourceId(), dialect.limitSql(dataSql), queryParams,
+                    deadline.statementTimeout(queryNode.getQueryTimeoutSeconds()));
+            boolean hasNext = records.size() > size;
+            if (hasNext) {
+                records = new ArrayList<>(records.subList(0, size));
+            }
+            String nextCursor = hasNext ? KeysetCursor.encode(records.get(records.size() - 1), columns) : null;
+            nodeExecutor.execute(records, queryNode, dataSourceExecutor, params, deadline);
+
+            return buildKeysetResult(records, size, nextCursor, hasNext);
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("分页查询执行失败", e);
+            throw new RuntimeException("分页查询失败: " + e.getMessage(), e);
+        }
+    }
+
     private Map<String, Object> buildPageResult(List<Map<String, Object>> records, long total, int current, int size) {
         Map<String, Object> result = new HashMap<>();
         result.put("records", records);
@@ -56,4 +178,22 @@ public record PageApiHandler() implements ApiHandler {
         result.put("pages", (total + size - 1) / size);
         return result;
     }
-}
\ No newline at end of file
+
+    private Map<String, Object> buildPageResult(List<Map<String, Object>> records, int current, int size, boolean hasNext) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("records", records);
+        result.put("current", current);
+        result.put("size", size);
+        result.put("hasNext", hasNext);
+        return result;
+    }
+
+    private Map<String, Object> buildKeysetResult(List<Map<String, Object>> records, int size, String nextCursor, boolean hasNext) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("records", records);
+        result.put("size", size);
+        result.put("nextCursor", nextCursor);
+        result.put("hasNext", hasNext);
+        return result;
+    }
+}
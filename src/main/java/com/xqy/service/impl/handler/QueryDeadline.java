@@ -0,0 +1,85 @@
+package com.xqy.service.impl.handler;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求执行截止时间
+ * <p>
+ * 每条语句的超时取节点超时与请求剩余时间中较小的一个，下层节点只能使用剩余预算；
+ * 预算耗尽后不再发起新的查询，尚未执行的节点直接取消。
+ *
+ * @author xqy
+ */
+public final class QueryDeadline {
+
+    /**
+     * 不限制
+     */
+    public static final QueryDeadline NONE = new QueryDeadline(0, 0);
+
+    private final long deadlineNanos;
+    private final long timeoutMillis;
+
+    private QueryDeadline(long deadlineNanos, long timeoutMillis) {
+        this.deadlineNanos = deadlineNanos;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 从现在开始计时的截止时间
+     *
+     * @param timeoutMillis 超时时间（毫秒），为空或不大于0时不限制
+     */
+    public static QueryDeadline of(Integer timeoutMillis) {
+        if (timeoutMillis == null || timeoutMillis <= 0) {
+            return NONE;
+        }
+        return new QueryDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), timeoutMillis);
+    }
+
+    /**
+     * 剩余时间（毫秒）
+     */
+    public long remainingMillis() {
+        return this == NONE ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * 预算已耗尽时取消后续执行
+     */
+    public void check() {
+        if (remainingMillis() <= 0) {
+            throw new QueryTimeoutException("API执行超时（" + timeoutMillis + "ms），剩余节点已取消");
+        }
+    }
+
+    /**
+     * 本次语句的超时（秒），同时检查预算
+     *
+     * @param nodeTimeoutSeconds 节点语句超时（秒），不大于0时只受请求预算限制
+     * @return 语句超时，0 表示不限制
+     */
+    public int statementTimeout(int nodeTimeoutSeconds) {
+        check();
+        if (this == NONE) {
+            return Math.max(0, nodeTimeoutSeconds);
+        }
+        int remaining = (int) Math.min(Integer.MAX_VALUE, (remainingMillis() + 999) / 1000);
+        return nodeTimeoutSeconds > 0 ? Math.min(nodeTimeoutSeconds, remaining) : remaining;
+    }
+
+    /**
+     * 异常是否由语句超时引起
+     */
+    public static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.xqy.trace;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 记录获取连接耗时的数据源包装，只在当前线程开启追踪时记录
+ * <p>
+ * 在请求中获取 Druid 连接时，等待时间取连接池 maxWait 与请求剩余时间中较小的一个。
+ *
+ * @author xqy
+ */
+public class ConnectionTimingDataSource extends DelegatingDataSource {
+
+    public ConnectionTimingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            long remainingMillis = QueryContext.remainingMillis();
+            if (remainingMillis != Long.MAX_VALUE && getTargetDataSource() instanceof DruidDataSource pool) {
+                QueryContext.current().getDeadline().check();
+                long maxWait = pool.getMaxWait();
+                return pool.getConnection(maxWait > 0 ? Math.min(maxWait, remainingMillis) : remainingMillis);
+            }
+            return super.getConnection();
+        } finally {
+            QueryTrace.connectionAcquired(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            QueryTrace.connectionAcquired(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.xqy.trace;
+
+import com.xqy.service.impl.handler.QueryDeadline;
+import lombok.Getter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 当前线程正在执行的API与节点，开启追踪时同时携带 {@link QueryTrace}
+ * <p>
+ * 保存在线程变量中，{@link com.xqy.service.impl.handler.NodeTaskExecutor} 提交并行任务时传递给工作线程，
+ * 供慢查询记录与执行追踪关联到API和节点；同时携带请求的 {@link QueryDeadline}，
+ * 等待数据源许可与获取连接的时间不超过请求剩余时间。
+ *
+ * @author xqy
+ */
+@Getter
+public final class QueryContext implements AutoCloseable {
+
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    private final String api;
+    private final Long nodeId;
+    private final QueryTrace trace;
+    private final QueryDeadline deadline;
+    private final QueryContext previous;
+
+    private QueryContext(String api, Long nodeId, QueryTrace trace, QueryDeadline deadline, QueryContext previous) {
+        this.api = api;
+        this.nodeId = nodeId;
+        this.trace = trace;
+        this.deadline = deadline == null ? QueryDeadline.NONE : deadline;
+        this.previous = previous;
+    }
+
+    /**
+     * 当前线程的上下文，不在请求中执行时返回 null
+     */
+    public static QueryContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前请求的剩余时间（毫秒），不在请求中执行或不限制时返回 {@link Long#MAX_VALUE}
+     */
+    public static long remainingMillis() {
+        QueryContext context = CURRENT.get();
+        return context == null ? Long.MAX_VALUE : context.deadline.remainingMillis();
+    }
+
+    /**
+     * 在当前线程进入API的根节点，关闭时恢复之前的上下文
+     *
+     * @param trace    执行追踪，未开启时为 null
+     * @param deadline 请求截止时间，为空时不限制
+     */
+    public static QueryContext open(String api, Long nodeId, QueryTrace trace, QueryDeadline deadline) {
+        QueryContext context = new QueryContext(api, nodeId, trace, deadline, CURRENT.get());
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * 进入同一请求的另一个节点
+     */
+    public QueryContext enter(Long nodeId) {
+        return open(api, nodeId, trace, deadline);
+    }
+
+    /**
+     * 把当前线程的上下文传递给在其他线程执行的任务
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        QueryContext context = CURRENT.get();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            try (QueryContext ignored = open(context.api, context.nodeId, context.trace, context.deadline)) {
+                return task.call();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        CURRENT.set(previous);
+    }
+}
@@ -0,0 +1,195 @@
+package com.xqy.trace;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.xqy.plan.PlanNode;
+import com.xqy.util.SqlUtils;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单次请求的执行追踪：按节点汇总执行次数、扇出、返回行数与耗时，并记录每条语句
+ * <p>
+ * 追踪随 {@link QueryContext} 在线程间传递，语句按上下文中的当前节点归属。
+ * 未开启追踪的请求只有一次线程变量读取的开销。
+ *
+ * @author xqy
+ */
+@Getter
+public final class QueryTrace {
+
+    /**
+     * 返回给调用方的追踪保存在该请求属性中
+     */
+    public static final String REQUEST_ATTRIBUTE = QueryTrace.class.getName();
+
+    private static final ThreadLocal<long[]> ACQUIRE_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final String api;
+
+    /**
+     * 是否由调用方请求（否则为采样）
+     */
+    private final boolean requested;
+
+    @JsonIgnore
+    private final int maxStatementsPerNode;
+
+    @JsonIgnore
+    private final long startNanos = System.nanoTime();
+
+    private double totalMillis;
+
+    @JsonIgnore
+    private final Map<Long, NodeTrace> nodeMap = new LinkedHashMap<>();
+
+    public QueryTrace(String api, boolean requested, int maxStatementsPerNode, PlanNode root) {
+        this.api = api;
+        this.requested = requested;
+        this.maxStatementsPerNode = maxStatementsPerNode;
+        nodeMap.put(root.getId(), new NodeTrace(root.getId(), root.getNodeName()));
+    }
+
+    /**
+     * 当前线程的追踪，未开启时返回 null
+     */
+    public static QueryTrace current() {
+        QueryContext context = QueryContext.current();
+        return context == null ? null : context.getTrace();
+    }
+
+    /**
+     * 记录当前线程获取连接的耗时
+     */
+    public static void connectionAcquired(long nanos) {
+        if (current() != null) {
+            ACQUIRE_NANOS.get()[0] += nanos;
+        }
+    }
+
+    /**
+     * 取出并清零当前线程累计的获取连接耗时
+     */
+    public static long takeAcquireNanos() {
+        long[] acquire = ACQUIRE_NANOS.get();
+        long nanos = acquire[0];
+        acquire[0] = 0;
+        return nanos;
+    }
+
+    /**
+     * 记录一次节点执行
+     *
+     * @param parentRows 父行数
+     * @param groups     去重后的绑定参数组数
+     */
+    public synchronized void node(PlanNode node, int parentRows, int groups, long elapsedNanos) {
+        NodeTrace trace = nodeMap.computeIfAbsent(node.getId(), id -> new NodeTrace(id, node.getNodeName()));
+        // 语句先于节点汇总记录时节点名称为空
+        trace.nodeName = node.getNodeName();
+        trace.invocations++;
+        trace.parentRows += parentRows;
+        trace.groups += groups;
+        trace.elapsedMillis += millis(elapsedNanos);
+    }
+
+    /**
+     * 记录当前节点执行的一条语句
+     *
+     * @param acquireNanos 等待数据源许可与获取连接的耗时
+     */
+    public synchronized void statement(String operation, String sql, int paramCount, Object result,
+                                       long acquireNanos, long elapsedNanos, boolean failed) {
+        QueryContext context = QueryContext.current();
+        Long nodeId = context == null ? null : context.getNodeId();
+        NodeTrace trace = nodeMap.computeIfAbsent(nodeId, id -> new NodeTrace(id, null));
+        long rows = result instanceof Collection<?> collection ? collection.size() : result == null ? 0 : 1;
+        trace.statementCount++;
+        trace.rows += rows;
+        trace.statementMillis += millis(elapsedNanos);
+        if (trace.statements.size() < maxStatementsPerNode) {
+            trace.statements.add(new StatementTrace(operation, SqlUtils.fingerprint(sql), paramCount, rows,
+                    millis(acquireNanos), millis(elapsedNanos), failed));
+        }
+    }
+
+    /**
+     * 结束追踪
+     */
+    public synchronized void finish() {
+        totalMillis = millis(System.nanoTime() - startNanos);
+        // 根节点由处理器直接查询，耗时取其语句耗时之和
+        nodeMap.values().stream().filter(node -> node.invocations == 0).forEach(node -> node.elapsedMillis = node.statementMillis);
+    }
+
+    public synchronized List<NodeTrace> getNodes() {
+        return new ArrayList<>(nodeMap.values());
+    }
+
+    /**
+     * 格式化为日志文本，每个节点一行
+     */
+    public synchronized String format() {
+        StringBuilder text = new StringBuilder().append(api).append(' ').append(round(totalMillis)).append("ms");
+        for (NodeTrace node : nodeMap.values()) {
+            text.append("\n  node ").append(node.nodeId).append(' ').append(node.nodeName)
+                    .append(": invocations=").append(node.invocations)
+                    .append(", parentRows=").append(node.parentRows)
+                    .append(", groups=").append(node.groups)
+                    .append(", statements=").append(node.statementCount)
+                    .append(", rows=").append(node.rows)
+                    .append(", elapsed=").append(round(node.elapsedMillis)).append("ms");
+        }
+        return text.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+
+    /**
+     * 节点汇总
+     */
+    @Getter
+    public static final class NodeTrace {
+        private final Long nodeId;
+        private String nodeName;
+        private int invocations;
+        private long parentRows;
+        private long groups;
+        private int statementCount;
+        private long rows;
+        private double elapsedMillis;
+        @JsonIgnore
+        private double statementMillis;
+        private final List<StatementTrace> statements = new ArrayList<>();
+
+        private NodeTrace(Long nodeId, String nodeName) {
+            this.nodeId = nodeId;
+            this.nodeName = nodeName;
+        }
+    }
+
+    /**
+     * 单条语句
+     *
+     * @param operation     调用类型（list/map/object/columnar）
+     * @param fingerprint   SQL指纹
+     * @param paramCount    绑定参数个数
+     * @param rows          返回行数
+     * @param acquireMillis 等待数据源许可与获取连接的耗时
+     * @param elapsedMillis 总耗时
+     * @param failed        是否失败
+     */
+    public record StatementTrace(String operation, String fingerprint, int paramCount, long rows,
+                                 double acquireMillis, double elapsedMillis, boolean failed) {
+    }
+}
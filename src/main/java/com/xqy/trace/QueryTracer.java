@@ -0,0 +1,77 @@
+package com.xqy.trace;
+
+import com.xqy.config.QueryServerProperties;
+import com.xqy.plan.PlanNode;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 决定请求是否追踪并处理追踪结果
+ * <ul>
+ *     <li>请求追踪：请求头 X-Query-Trace: true（或参数 _trace=true）且 X-Admin-Token 与配置的管理令牌一致，追踪随响应返回</li>
+ *     <li>采样追踪：按采样率随机追踪，结果写入日志</li>
+ * </ul>
+ *
+ * @author xqy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryTracer {
+
+    public static final String TRACE_HEADER = "X-Query-Trace";
+    public static final String TRACE_PARAM = "_trace";
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private final QueryServerProperties properties;
+
+    /**
+     * 开始追踪，不需要追踪时返回 null
+     */
+    public QueryTrace start(String api, PlanNode root, HttpServletRequest request) {
+        QueryServerProperties.Trace config = properties.getTrace();
+        boolean requested = isRequested(request) && isAuthorized(request, config.getAdminToken());
+        boolean sampled = !requested && config.getSampleRate() > 0
+                && ThreadLocalRandom.current().nextDouble() < config.getSampleRate();
+        if (!requested && !sampled) {
+            return null;
+        }
+        return new QueryTrace(api, requested, Math.max(0, config.getMaxStatementsPerNode()), root);
+    }
+
+    /**
+     * 结束追踪：请求追踪放入请求属性随响应返回，采样追踪写入日志
+     */
+    public void finish(QueryTrace trace, HttpServletRequest request) {
+        if (trace == null) {
+            return;
+        }
+        trace.finish();
+        if (trace.isRequested() && request != null) {
+            request.setAttribute(QueryTrace.REQUEST_ATTRIBUTE, trace);
+        } else {
+            log.info("查询追踪（采样）: {}", trace.format());
+        }
+    }
+
+    private boolean isRequested(HttpServletRequest request) {
+        return request != null && ("true".equalsIgnoreCase(request.getHeader(TRACE_HEADER))
+                || "true".equalsIgnoreCase(request.getParameter(TRACE_PARAM)));
+    }
+
+    private boolean isAuthorized(HttpServletRequest request, String adminToken) {
+        if (adminToken == null || adminToken.isEmpty()) {
+            log.debug("未配置管理令牌，忽略追踪请求");
+            return false;
+        }
+        String token = request.getHeader(ADMIN_TOKEN_HEADER);
+        return token != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                adminToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,350 @@
+package com.xqy.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 工具类
+ *
+ * @author xqy
+ */
+public final class SqlUtils {
+
+    /**
+     * 命名参数 :paramName（排除 PostgreSQL 的 :: 类型转换），匹配前先屏蔽字符串字面量与注释
+     */
+    private static final Pattern NAMED_PARAM_PATTERN = Pattern.compile("(?<![:\\w]):([a-zA-Z_][a-zA-Z0-9_]*)");
+
+    /**
+     * 限制行数的关键字，批量改写后会改变语义
+     */
+    private static final Pattern ROW_LIMIT_PATTERN = Pattern.compile("\\b(limit|top|fetch|rownum|offset)\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * ORDER BY 关键字
+     */
+    private static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 连续空白
+     */
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    /**
+     * 批量查询时绑定列的别名前缀，按参数顺序编号：qs_batch_key_0、qs_batch_key_1 ...
+     */
+    public static final String BATCH_KEY_ALIAS_PREFIX = "qs_batch_key_";
+
+    private static final Pattern SELECT_PATTERN = Pattern.compile("^\\s*select\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern FROM_PATTERN = Pattern.compile("\\bfrom\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern WHERE_PATTERN = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern OR_PATTERN = Pattern.compile("\\bor\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * WHERE 子句之后的子句
+     */
+    private static final Pattern CLAUSE_END_PATTERN = Pattern.compile(
+            "\\b(group\\s+by|having|order\\s+by|window|union|intersect|except|minus|limit|offset|fetch|for\\s+update)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 最外层出现时批量结果的行不能逐行归属父行：去重、集合运算、分组、聚合与窗口函数
+     */
+    private static final Pattern NON_BATCHABLE_PATTERN = Pattern.compile(
+            "\\b(distinct|union|intersect|except|minus|group\\s+by|having|over)\\b"
+                    + "|\\b(count|sum|avg|min|max|group_concat|string_agg|listagg|array_agg|json_arrayagg|json_objectagg"
+                    + "|stddev|variance|bit_and|bit_or|bool_and|bool_or|every)\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 列名（可带表别名，支持 `x`、"x"、[x] 引用）
+     */
+    private static final String COLUMN = "(?:[a-zA-Z_][\\w$]*|`[^`]+`|\"[^\"]+\"|\\[[^\\]]+\\])";
+
+    /**
+     * WHERE 子句中的 "列 = :param" 条件，必须紧跟在 WHERE/AND 之后、后面是 AND 或子句结束
+     */
+    private static final Pattern KEY_EQUALITY_PATTERN = Pattern.compile(
+            "\\b(?:where|and)\\s+(" + COLUMN + "(?:\\s*\\.\\s*" + COLUMN + ")*)\\s*(=\\s*:([a-zA-Z_][a-zA-Z0-9_]*))(?![\\w:])"
+                    + "(?=\\s*(?:\\band\\b|$))",
+            Pattern.CASE_INSENSITIVE);
+
+    private SqlUtils() {
+    }
+
+    /**
+     * 解析SQL中的命名参数（按出现顺序去重）
+     */
+    public static List<String> parseParameterNames(String sql) {
+        if (sql == null) {
+            return List.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        Matcher matcher = NAMED_PARAM_PATTERN.matcher(mask(sql));
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * SQL 是否包含限制行数的子句
+     */
+    public static boolean hasRowLimit(String sql) {
+        return ROW_LIMIT_PATTERN.matcher(mask(sql)).find();
+    }
+
+    /**
+     * 可以批量查询的参数及其过滤列
+     * <p>
+     * 只有不含去重、集合运算、分组、聚合与窗口函数的单个 SELECT 可以批量：批量结果按过滤列逐行归属父行，
+     * 这些写法的结果行不再与单个父行一一对应。参数必须在SQL中只出现一次，且以 "列 = :param" 的形式
+     * 出现在最外层 WHERE 中，WHERE 最外层不能有 OR（否则命中其他条件的行无法归属到所有父行）。
+     * 查询列含不带表名的 * 时不批量：Oracle 不允许 "SELECT *, 列"，追加别名列后语句无法执行。
+     *
+     * @return key: 参数名，value: 过滤列
+     */
+    public static Map<String, String> batchKeyColumns(String sql) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (BatchKey key : batchKeys(sql)) {
+            columns.put(key.param(), key.column());
+        }
+        return columns;
+    }
+
+    /**
+     * 批量SQL：把指定参数的 "列 = :param" 改写为 "列 IN (:param)"，由 NamedParameterJdbcTemplate 展开集合参数，
+     * 并把过滤列以 {@link #BATCH_KEY_ALIAS_PREFIX} 加序号的别名追加到查询列中，批量结果按别名关联回父行
+     *
+     * @param paramNames 需要展开的参数，必须都在 {@link #batchKeyColumns(String)} 中
+     */
+    public static String toBatchSql(String sql, List<String> paramNames) {
+        Map<String, BatchKey> keys = new LinkedHashMap<>();
+        for (BatchKey key : batchKeys(sql)) {
+            keys.put(key.param(), key);
+        }
+        StringBuilder projection = new StringBuilder();
+        List<BatchKey> rewrites = new ArrayList<>();
+        for (int i = 0; i < paramNames.size(); i++) {
+            BatchKey key = keys.get(paramNames.get(i));
+            if (key == null) {
+                throw new IllegalArgumentException("参数不能批量查询: " + paramNames.get(i));
+            }
+            projection.append(", ").append(key.column()).append(" AS ").append(BATCH_KEY_ALIAS_PREFIX).append(i);
+            rewrites.add(key);
+        }
+        // 从后往前替换，前面的下标不受影响
+        rewrites.sort((a, b) -> Integer.compare(b.start(), a.start()));
+        StringBuilder result = new StringBuilder(sql);
+        for (BatchKey key : rewrites) {
+            result.replace(key.start(), key.end(), "IN (:" + key.param() + ")");
+        }
+        int selectEnd = keys.values().iterator().next().selectEnd();
+        return result.insert(selectEnd, projection.append(' ')).toString();
+    }
+
+    /**
+     * 解析可批量的参数，SQL 不满足批量条件时返回空列表
+     */
+    private static List<BatchKey> batchKeys(String sql) {
+        if (sql == null || !SELECT_PATTERN.matcher(sql).find() || hasRowLimit(sql)) {
+            return List.of();
+        }
+        String masked = mask(sql);
+        int[] depth = depths(masked);
+        if (findTopLevel(NON_BATCHABLE_PATTERN, masked, depth, 0, masked.length()) >= 0) {
+            return List.of();
+        }
+        int from = findTopLevel(FROM_PATTERN, masked, depth, 0, masked.length());
+        int where = from < 0 ? -1 : findTopLevel(WHERE_PATTERN, masked, depth, from, masked.length());
+        if (where < 0) {
+            return List.of();
+        }
+        Matcher select = SELECT_PATTERN.matcher(masked);
+        if (select.find() && hasBareStar(masked, depth, select.end(), from)) {
+            return List.of();
+        }
+        int whereEnd = findTopLevel(CLAUSE_END_PATTERN, masked, depth, where, masked.length());
+        if (whereEnd < 0) {
+            whereEnd = masked.length();
+        }
+        if (findTopLevel(OR_PATTERN, masked, depth, where, whereEnd) >= 0) {
+            return List.of();
+        }
+
+        List<String> once = new ArrayList<>();
+        Map<String, Integer> occurrences = new LinkedHashMap<>();
+        Matcher params = NAMED_PARAM_PATTERN.matcher(masked);
+        while (params.find()) {
+            occurrences.merge(params.group(1), 1, Integer::sum);
+        }
+        occurrences.forEach((name, count) -> {
+            if (count == 1) {
+                once.add(name);
+            }
+        });
+
+        // 去掉结尾的分号与空白，使最后一个条件能匹配到子句结束
+        String clause = masked.substring(0, whereEnd).replaceFirst("[\\s;]+$", "");
+        List<BatchKey> keys = new ArrayList<>();
+        Matcher matcher = KEY_EQUALITY_PATTERN.matcher(clause);
+        matcher.region(where, clause.length());
+        while (matcher.find()) {
+            if (depth[matcher.start()] == 0 && once.contains(matcher.group(3))) {
+                keys.add(new BatchKey(matcher.group(3), sql.substring(matcher.start(1), matcher.end(1)),
+                        matcher.start(2), matcher.end(2), from));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * SQL 最外层是否有 ORDER BY
+     */
+    public static boolean hasOrderBy(String sql) {
+        return topLevelOrderBy(sql) >= 0;
+    }
+
+    /**
+     * 去掉最外层末尾的 ORDER BY，用于 COUNT 子查询；带行数限制时排序影响结果，保留原样
+     */
+    public static String stripOrderBy(String sql) {
+        int index = topLevelOrderBy(sql);
+        if (index < 0 || hasRowLimit(sql.substring(index))) {
+            return sql;
+        }
+        return sql.substring(0, index).stripTrailing();
+    }
+
+    /**
+     * 最外层（不在括号与字符串内）最后一个 ORDER BY 的位置，没有返回 -1
+     */
+    private static int topLevelOrderBy(String sql) {
+        if (sql == null) {
+            return -1;
+        }
+        String masked = mask(sql);
+        int[] depth = depths(masked);
+        int found = -1;
+        Matcher matcher = ORDER_BY_PATTERN.matcher(masked);
+        while (matcher.find()) {
+            if (depth[matcher.start()] == 0) {
+                found = matcher.start();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * SQL指纹：屏蔽字符串字面量、合并空白并转小写后的哈希，用于在追踪与日志中标识语句
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String normalized = WHITESPACE_PATTERN.matcher(mask(sql)).replaceAll(" ").trim().toLowerCase();
+        return String.format("%08x", normalized.hashCode());
+    }
+
+    /**
+     * 字符串字面量内容与注释替换为空格，保持下标不变
+     */
+    private static String mask(String sql) {
+        StringBuilder masked = new StringBuilder(sql);
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            int end;
+            if (c == '\'') {
+                end = i + 1;
+                while (end < sql.length() && (sql.charAt(end) != '\'' || end + 1 < sql.length() && sql.charAt(end + 1) == '\'')) {
+                    end += sql.charAt(end) == '\'' ? 2 : 1;
+                }
+                // 保留两端引号
+                blank(masked, i + 1, Math.min(end, sql.length()));
+                i = end + 1;
+            } else if (sql.startsWith("--", i)) {
+                end = sql.indexOf('\n', i);
+                end = end < 0 ? sql.length() : end;
+                blank(masked, i, end);
+                i = end;
+            } else if (sql.startsWith("/*", i)) {
+                end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? sql.length() : end + 2;
+                blank(masked, i, end);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return masked.toString();
+    }
+
+    private static void blank(StringBuilder text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            text.setCharAt(i, ' ');
+        }
+    }
+
+    /**
+     * 查询列 [from, to) 中是否有单独的 *（不带表名）
+     */
+    private static boolean hasBareStar(String masked, int[] depth, int from, int to) {
+        int itemStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || masked.charAt(i) == ',' && depth[i] == 0) {
+                if (masked.substring(itemStart, i).trim().equals("*")) {
+                    return true;
+                }
+                itemStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 每个下标处的括号深度
+     */
+    private static int[] depths(String masked) {
+        int[] depth = new int[masked.length() + 1];
+        for (int i = 0; i < masked.length(); i++) {
+            char c = masked.charAt(i);
+            depth[i + 1] = depth[i] + (c == '(' ? 1 : c == ')' ? -1 : 0);
+        }
+        return depth;
+    }
+
+    /**
+     * 在 [from, to) 中查找第一个位于最外层括号外的匹配，没有返回 -1
+     */
+    private static int findTopLevel(Pattern pattern, String masked, int[] depth, int from, int to) {
+        Matcher matcher = pattern.matcher(masked);
+        matcher.region(from, to);
+        while (matcher.find()) {
+            if (depth[matcher.start()] == 0) {
+                return matcher.start();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 可批量的参数
+     *
+     * @param column    过滤列
+     * @param start     "= :param" 的起始下标
+     * @param end       "= :param" 的结束下标
+     * @param selectEnd 查询列结束（最外层 FROM）的下标
+     */
+    private record BatchKey(String param, String column, int start, int end, int selectEnd) {
+    }
+}
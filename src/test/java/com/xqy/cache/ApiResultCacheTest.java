@@ -0,0 +1,38 @@
+package com.xqy.cache;
+
+import com.xqy.config.QueryServerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ApiResultCacheTest {
+
+    private ApiResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ApiResultCache(new QueryServerProperties());
+        cache.init();
+    }
+
+    @Test
+    void paramsWithSameStringFormAreDifferentKeys() {
+        cache.get("/a:GET", Map.of("a", "1, b=2"), 60, () -> "first");
+        Object second = cache.get("/a:GET", Map.of("a", "1", "b", "2"), 60, () -> "second");
+        assertEquals("second", second);
+    }
+
+    @Test
+    @Timeout(10)
+    void failedLoadDoesNotBlockLaterCallers() {
+        assertThrows(AssertionError.class, () -> cache.get("/a:GET", Map.of(), 60, () -> {
+            throw new AssertionError("boom");
+        }));
+        assertEquals("ok", cache.get("/a:GET", Map.of(), 60, () -> "ok"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.xqy.cache;
+
+import com.xqy.config.QueryServerProperties;
+import com.xqy.dto.QueryNodeTreeDto;
+import com.xqy.entity.ApiInfo;
+import com.xqy.enums.ApiType;
+import com.xqy.enums.QueryNodeType;
+import com.xqy.enums.RelationType;
+import com.xqy.plan.ExecutionPlanCompiler;
+import com.xqy.plan.PlanNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class NodeResultCacheTest {
+
+    private NodeResultCache cache;
+    private PlanNode node;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NodeResultCache(new QueryServerProperties());
+        cache.init();
+
+        QueryNodeTreeDto root = node(1L, null, "SELECT ID, NAME FROM category WHERE id = :id");
+        root.setCacheTtlSeconds(60);
+        QueryNodeTreeDto child = node(2L, "products", "SELECT id FROM product WHERE category_id = :ID");
+        child.setParentId(root.getId());
+        root.getChildrenList().add(child);
+        root.setHasChildren(true);
+        ApiInfo apiInfo = new ApiInfo();
+        apiInfo.setId(1L);
+        apiInfo.setApiType(ApiType.LIST);
+        node = new ExecutionPlanCompiler().compile(apiInfo, root).root();
+    }
+
+    @Test
+    void copiedRowsKeepCaseInsensitiveColumnNames() {
+        Map<String, Object> row = new LinkedCaseInsensitiveMap<>();
+        row.put("ID", 7);
+        row.put("NAME", "c7");
+        cache.put(node, List.of(7), List.of(row));
+
+        Map<String, Object> cached = cache.get(node, List.of(7)).get(0);
+        assertNotSame(row, cached);
+        // 命中缓存与直接查询的行一样按任意大小写取值
+        assertEquals(7, cached.get("id"));
+        assertEquals("c7", cached.get("Name"));
+        assertEquals(List.of("ID", "NAME"), new ArrayList<>(cached.keySet()));
+    }
+
+    private QueryNodeTreeDto node(Long id, String bindingName, String sql) {
+        QueryNodeTreeDto node = new QueryNodeTreeDto();
+        node.setId(id);
+        node.setNodeName(bindingName == null ? "category" : bindingName);
+        node.setQueryNodeType(QueryNodeType.ROWS);
+        node.setSqlContent(sql);
+        node.setDataSourceId(1);
+        node.setBindingName(bindingName);
+        node.setRelationType(RelationType.CHILD);
+        node.setChildrenList(new ArrayList<>());
+        node.setHasChildren(false);
+        return node;
+    }
+}
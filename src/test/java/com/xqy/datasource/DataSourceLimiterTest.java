@@ -0,0 +1,186 @@
+package com.xqy.datasource;
+
+import com.xqy.config.QueryServerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DataSourceLimiterTest {
+
+    private static final Integer SOURCE = 1;
+    private static final int MAX_ACTIVE = 4;
+
+    private QueryServerProperties.CircuitBreaker breaker;
+    private DataSourceLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        QueryServerProperties properties = new QueryServerProperties();
+        properties.getDatasource().setPermitTimeoutMillis(0);
+        properties.getStreaming().setMaxConcurrentPerSource(2);
+        breaker = properties.getDatasource().getCircuitBreaker();
+        breaker.setWindowSize(10);
+        breaker.setMinimumCalls(4);
+        breaker.setFailureRateThreshold(50);
+        breaker.setSlowCallMillis(60000);
+        breaker.setSlowCallRateThreshold(80);
+        breaker.setOpenMillis(60000);
+        breaker.setHalfOpenCalls(2);
+        limiter = new DataSourceLimiter(properties);
+    }
+
+    @Test
+    void tripsOnFailureRateOnceMinimumCallsReached() {
+        fail();
+        fail();
+        fail();
+        // 未达到最少调用次数，不计算失败率
+        assertEquals("CLOSED", state());
+        query(() -> null);
+        assertEquals("OPEN", state());
+    }
+
+    @Test
+    void sqlErrorsDoNotCountAsFailures() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(BadSqlGrammarException.class, () -> query(() -> {
+                throw new BadSqlGrammarException("query", "SELECT", new SQLException("syntax"));
+            }));
+        }
+        assertEquals("CLOSED", state());
+        assertEquals(0.0, limiter.status().get(0).getFailureRate());
+    }
+
+    @Test
+    void tripsOnSlowCallRateOnceMinimumCallsReached() {
+        breaker.setSlowCallMillis(0);
+        query(() -> null);
+        query(() -> null);
+        query(() -> null);
+        assertEquals("CLOSED", state());
+        query(() -> null);
+        assertEquals("OPEN", state());
+    }
+
+    @Test
+    void rejectsCallsWhileOpen() {
+        trip();
+        AtomicInteger executed = new AtomicInteger();
+        assertThrows(RuntimeException.class, () -> query(executed::incrementAndGet));
+        assertThrows(RuntimeException.class, () -> stream(executed::incrementAndGet));
+        assertEquals(0, executed.get());
+        assertEquals(2, limiter.status().get(0).getRejected());
+        assertEquals(0, limiter.status().get(0).getActive());
+    }
+
+    @Test
+    void halfOpenAdmitsLimitedProbes() {
+        breaker.setOpenMillis(0);
+        trip();
+        AtomicInteger executed = new AtomicInteger();
+        // 两个探测名额被占用时，第三个请求直接拒绝
+        query(() -> query(() -> {
+            assertEquals("HALF_OPEN", state());
+            assertThrows(RuntimeException.class, () -> query(executed::incrementAndGet));
+            return null;
+        }));
+        assertEquals(0, executed.get());
+        assertEquals("CLOSED", state());
+    }
+
+    @Test
+    void closesAfterAllProbesSucceed() {
+        breaker.setOpenMillis(0);
+        trip();
+        query(() -> null);
+        assertEquals("HALF_OPEN", state());
+        query(() -> null);
+        assertEquals("CLOSED", state());
+        // 恢复后重新开始统计
+        assertEquals(0, limiter.status().get(0).getCalls());
+    }
+
+    @Test
+    void reopensWhenProbeFails() {
+        breaker.setOpenMillis(0);
+        trip();
+        query(() -> null);
+        fail();
+        assertEquals("OPEN", state());
+    }
+
+    @Test
+    void reopensWhenProbeIsSlow() {
+        breaker.setOpenMillis(0);
+        trip();
+        breaker.setSlowCallMillis(0);
+        query(() -> null);
+        assertEquals("OPEN", state());
+    }
+
+    @Test
+    void streamsAndQueriesTogetherNeverExceedMaxActive() {
+        // 两个流式查询 + 两个普通查询占满连接池，第五个普通查询在限流处拒绝，而不是等待连接
+        stream(() -> stream(() -> query(() -> query(() -> {
+            assertEquals(MAX_ACTIVE, limiter.status().get(0).getActive());
+            assertThrows(RuntimeException.class, () -> query(() -> null));
+            return null;
+        }))));
+        assertEquals(0, limiter.status().get(0).getActive());
+    }
+
+    @Test
+    void streamsAreCappedAtHalfOfMaxActive() {
+        stream(() -> stream(() -> {
+            assertThrows(RuntimeException.class, () -> stream(() -> null));
+            // 流式许可用尽时普通查询仍可获取剩余许可
+            return query(() -> null);
+        }));
+    }
+
+    @Test
+    void bulkheadHoldsPermitWithoutBreakerAccounting() {
+        limiter.bulkhead(SOURCE, () -> MAX_ACTIVE, 0, () -> {
+            assertEquals(1, limiter.status().get(0).getActive());
+            return null;
+        });
+        assertThrows(QueryTimeoutException.class, () -> limiter.bulkhead(SOURCE, () -> MAX_ACTIVE, 0, () -> {
+            throw new QueryTimeoutException("explain");
+        }));
+        assertEquals(0, limiter.status().get(0).getCalls());
+        assertEquals(0, limiter.status().get(0).getActive());
+    }
+
+    private void trip() {
+        for (int i = 0; i < breaker.getMinimumCalls(); i++) {
+            fail();
+        }
+        assertEquals("OPEN", state());
+    }
+
+    private void fail() {
+        assertThrows(QueryTimeoutException.class, () -> query(() -> {
+            throw new QueryTimeoutException("timeout");
+        }));
+    }
+
+    private String state() {
+        return limiter.status().get(0).getState();
+    }
+
+    private Object stream(Supplier<Object> call) {
+        return limiter.stream(SOURCE, () -> MAX_ACTIVE, 0, call);
+    }
+
+    private Object query(Supplier<Object> call) {
+        return limiter.call(SOURCE, () -> MAX_ACTIVE, 0, call);
+    }
+}
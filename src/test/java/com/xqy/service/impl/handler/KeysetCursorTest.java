@@ -0,0 +1,162 @@
+package com.xqy.service.impl.handler;
+
+import com.xqy.datasource.dialect.MySqlDialect;
+import com.xqy.datasource.dialect.SqlDialect;
+import com.xqy.plan.KeysetColumn;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 游标编解码与定位SQL：逐页读取不跳行、不重复
+ */
+class KeysetCursorTest {
+
+    private static SingleConnectionDataSource dataSource;
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createDatabase() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:keyset_cursor;DATABASE_TO_LOWER=TRUE", "sa", "", true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE item (id INT PRIMARY KEY, grp INT, score INT, name VARCHAR(8))");
+        // 排序列有重复值与 NULL
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO item VALUES "
+                + "(1, 1, 10, 'a'), (2, 1, 10, 'b'), (3, 1, 20, 'c'), (4, 2, 10, 'd'), (5, 2, NULL, 'e'), "
+                + "(6, 2, 30, 'f'), (7, 1, 20, 'g'), (8, NULL, 5, 'h'), (9, 3, 10, 'i'), (10, 2, 30, 'j'), (11, 1, 5, 'k')");
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void cursorRoundTripKeepsValueTypes() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 42L);
+        row.put("price", new BigDecimal("12.50"));
+        row.put("created", Timestamp.valueOf("2024-03-01 10:15:30.123"));
+        row.put("updated", LocalDateTime.of(2024, 3, 2, 8, 0));
+        row.put("day", LocalDate.of(2024, 3, 3));
+        row.put("active", true);
+        row.put("name", "名称,\"x\"");
+        List<KeysetColumn> columns = KeysetColumn.parse("id, price desc, created, updated, day, active, name");
+
+        List<Object> values = KeysetCursor.decode(KeysetCursor.encode(row, columns), columns.size());
+        assertEquals(List.of(new BigDecimal("42"), new BigDecimal("12.50"), Timestamp.valueOf("2024-03-01 10:15:30.123"),
+                Timestamp.valueOf("2024-03-02 08:00:00"), java.sql.Date.valueOf("2024-03-03"), true, "名称,\"x\""), values);
+    }
+
+    @Test
+    void encodeRejectsNullSortValue() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", null);
+        assertThrows(RuntimeException.class, () -> KeysetCursor.encode(row, KeysetColumn.parse("id")));
+    }
+
+    @Test
+    void decodeRejectsMalformedCursors() {
+        String valid = KeysetCursor.encode(Map.of("id", 1, "name", "a"), KeysetColumn.parse("id, name"));
+        assertEquals(2, KeysetCursor.decode(valid, 2).size());
+
+        // 列数与排序列不一致
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(valid, 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(valid, 3));
+        // 不是 Base64 / 不是 JSON / 结构不对
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("%%%", 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("not json"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("{\"n\":\"1\"}"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"n\"]]"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"n\",\"1\",\"2\"]]"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"n\",null]]"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[null]"), 1));
+        // 未知类型标记与类型不匹配的值
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"x\",\"1\"]]"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"n\",\"1 OR 1=1\"]]"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"t\",\"yesterday\"]]"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("[[\"d\",\"2024-13-45\"]]"), 1));
+    }
+
+    @Test
+    void seekPredicateExpandsMixedDirections() {
+        assertEquals("((grp > :keyset_0))", KeysetCursor.seekPredicate(KeysetColumn.parse("grp")));
+        assertEquals("((grp > :keyset_0) OR (grp = :keyset_0 AND score < :keyset_1) "
+                        + "OR (grp = :keyset_0 AND score = :keyset_1 AND id > :keyset_2))",
+                KeysetCursor.seekPredicate(KeysetColumn.parse("grp asc, score desc, id")));
+    }
+
+    @Test
+    void pageSqlExcludesNullSortValuesOnEveryPage() {
+        List<KeysetColumn> columns = KeysetColumn.parse("grp, score desc");
+        assertEquals("SELECT * FROM (SELECT * FROM item WHERE name <> :skip) keyset_page "
+                        + "WHERE grp IS NOT NULL AND score IS NOT NULL ORDER BY grp ASC, score DESC",
+                KeysetCursor.pageSql("SELECT * FROM item WHERE name <> :skip ORDER BY id", columns, false));
+        assertEquals("SELECT * FROM (SELECT * FROM item WHERE name <> :skip) keyset_page "
+                        + "WHERE grp IS NOT NULL AND score IS NOT NULL AND ((grp > :keyset_0) OR (grp = :keyset_0 AND score < :keyset_1)) "
+                        + "ORDER BY grp ASC, score DESC",
+                KeysetCursor.pageSql("SELECT * FROM item WHERE name <> :skip ORDER BY id", columns, true));
+    }
+
+    @Test
+    void pagingVisitsEveryNonNullRowOnce() {
+        for (String spec : List.of("id", "grp, id", "grp asc, score desc, id asc", "score desc, grp desc, id desc")) {
+            List<KeysetColumn> columns = KeysetColumn.parse(spec);
+            StringBuilder expectedSql = new StringBuilder("SELECT id FROM item WHERE 1 = 1");
+            columns.forEach(column -> expectedSql.append(" AND ").append(column.name()).append(" IS NOT NULL"));
+            expectedSql.append(" ORDER BY ");
+            for (int i = 0; i < columns.size(); i++) {
+                expectedSql.append(i == 0 ? "" : ", ").append(columns.get(i).name()).append(columns.get(i).descending() ? " DESC" : " ASC");
+            }
+            List<Integer> expected = jdbcTemplate.queryForList(expectedSql.toString(), Map.of(), Integer.class);
+            for (int size = 1; size <= 4; size++) {
+                assertEquals(expected, readAllPages(columns, size), spec + ", size " + size);
+            }
+        }
+    }
+
+    /**
+     * 按游标逐页读取，返回所有页的 id
+     */
+    private List<Integer> readAllPages(List<KeysetColumn> columns, int size) {
+        SqlDialect dialect = new MySqlDialect();
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Map<String, Object> params = new HashMap<>();
+            params.put("skip", "none");
+            params.put(SqlDialect.LIMIT_PARAM, size + 1);
+            if (cursor != null) {
+                KeysetCursor.bind(KeysetCursor.decode(cursor, columns.size()), params);
+            }
+            String sql = dialect.limitSql(KeysetCursor.pageSql("SELECT * FROM item WHERE name <> :skip ORDER BY id", columns, cursor != null));
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, params);
+            boolean hasNext = rows.size() > size;
+            List<Map<String, Object>> page = hasNext ? rows.subList(0, size) : rows;
+            page.forEach(row -> ids.add(((Number) row.get("id")).intValue()));
+            cursor = hasNext ? KeysetCursor.encode(page.get(page.size() - 1), columns) : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    private String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,210 @@
+package com.xqy.service.impl.handler;
+
+import com.xqy.cache.NodeResultCache;
+import com.xqy.config.QueryServerProperties;
+import com.xqy.datasource.ColumnarResult;
+import com.xqy.datasource.ColumnarResultExtractor;
+import com.xqy.dto.QueryNodeTreeDto;
+import com.xqy.entity.ApiInfo;
+import com.xqy.enums.ApiType;
+import com.xqy.enums.QueryNodeType;
+import com.xqy.enums.RelationType;
+import com.xqy.metrics.QueryMetrics;
+import com.xqy.plan.ExecutionPlan;
+import com.xqy.plan.ExecutionPlanCompiler;
+import com.xqy.service.DynamicDataSourceExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * 子节点批量查询与逐行查询结果一致
+ */
+class NodeExecutorTest {
+
+    private static SingleConnectionDataSource dataSource;
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private long nodeSeq;
+
+    @BeforeAll
+    static void createDatabase() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:node_executor;DATABASE_TO_LOWER=TRUE", "sa", "", true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE category (id VARCHAR(8) PRIMARY KEY, region VARCHAR(8))");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE product (id VARCHAR(8) PRIMARY KEY, name VARCHAR(32), "
+                + "category_id VARCHAR(8), region VARCHAR(8))");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO category VALUES ('c1', 'north'), ('c2', 'south'), ('c3', 'north')");
+        // product 的 id 与 category 的 id 取值重叠：按同名列关联会把 p1 挂到 c1 下
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO product VALUES "
+                + "('c1', 'p1', 'c3', 'north'), ('c2', 'p2', 'c3', 'south'), ('c3', 'p3', 'c1', 'north'), ('c4', 'p4', 'c1', 'south')");
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void batchJoinsOnFilteredColumnNotSameNamedColumn() {
+        String child = "SELECT id, name FROM product WHERE category_id = :id ORDER BY id";
+        List<Map<String, Object>> batched = run(true, child);
+        assertEquals(1, queries.get());
+        assertEquals(run(false, child), batched);
+        assertEquals(List.of("p3", "p4"), names(batched.get(0)));
+        assertEquals(List.of(), names(batched.get(1)));
+        assertEquals(List.of("p1", "p2"), names(batched.get(2)));
+        assertEquals(List.of("id", "name"), new ArrayList<>(products(batched.get(0)).get(0).keySet()));
+    }
+
+    @Test
+    void batchDropsRowsOutsideBoundKeyPairs() {
+        // 两个键分别 IN 展开后会查出 (c1, south)、(c3, south) 这类不属于任何父行的组合，应丢弃
+        String child = "SELECT name FROM product WHERE category_id = :id AND region = :region ORDER BY name";
+        List<Map<String, Object>> batched = run(true, child);
+        assertEquals(1, queries.get());
+        assertEquals(run(false, child), batched);
+        assertEquals(List.of("p3"), names(batched.get(0)));
+        assertEquals(List.of(), names(batched.get(1)));
+        assertEquals(List.of("p1"), names(batched.get(2)));
+    }
+
+    @Test
+    void aggregateChildIsNotBatched() {
+        String child = "SELECT COUNT(*) AS total FROM product WHERE category_id = :id";
+        List<Map<String, Object>> batched = run(true, child);
+        assertEquals(3, queries.get());
+        assertEquals(run(false, child), batched);
+        assertEquals(2L, ((Number) products(batched.get(0)).get(0).get("total")).longValue());
+        assertEquals(0L, ((Number) products(batched.get(1)).get(0).get("total")).longValue());
+    }
+
+    @Test
+    void columnarChildIsBatchedIntoColumnarGroups() {
+        String child = "SELECT id, name FROM product WHERE category_id = :id ORDER BY id";
+        List<Map<String, Object>> batched = execute(nodeExecutor(true), plan(child, true), dataSourceExecutor());
+        assertEquals(1, queries.get());
+        assertEquals(run(false, child), batched);
+        assertInstanceOf(ColumnarResult.class, batched.get(0).get("products"));
+        assertEquals(List.of("id", "name"), new ArrayList<>(products(batched.get(0)).get(0).keySet()));
+        assertEquals(List.of("p3", "p4"), names(batched.get(0)));
+        assertEquals(List.of(), names(batched.get(1)));
+    }
+
+    @Test
+    void batchRejectedByDatabaseIsNotRetried() {
+        String child = "SELECT id, name FROM product WHERE category_id = :id ORDER BY id";
+        ExecutionPlan plan = plan(child, false);
+        NodeExecutor nodeExecutor = nodeExecutor(true);
+        AtomicInteger batchAttempts = new AtomicInteger();
+        DynamicDataSourceExecutor executor = dataSourceExecutor();
+        Mockito.doAnswer(invocation -> {
+            batchAttempts.incrementAndGet();
+            throw new BadSqlGrammarException("batch", invocation.getArgument(1), new SQLException("ORA-00936"));
+        }).when(executor).executeQueryForList(any(), Mockito.contains("IN ("), anyMap(), anyInt());
+
+        List<Map<String, Object>> first = execute(nodeExecutor, plan, executor);
+        List<Map<String, Object>> second = execute(nodeExecutor, plan, executor);
+        assertEquals(1, batchAttempts.get());
+        assertEquals(3, queries.get());
+        assertEquals(first, second);
+        assertEquals(run(false, child), second);
+    }
+
+    /**
+     * 执行 category 根节点 + products 子节点，返回根结果
+     */
+    private List<Map<String, Object>> run(boolean batchEnabled, String childSql) {
+        return execute(nodeExecutor(batchEnabled), plan(childSql, false), dataSourceExecutor());
+    }
+
+    private NodeExecutor nodeExecutor(boolean batchEnabled) {
+        QueryServerProperties properties = new QueryServerProperties();
+        properties.getExecution().setBatchEnabled(batchEnabled);
+        NodeTaskExecutor taskExecutor = new NodeTaskExecutor(properties);
+        taskExecutor.init();
+        NodeResultCache nodeResultCache = new NodeResultCache(properties);
+        nodeResultCache.init();
+        return new NodeExecutor(properties, taskExecutor, nodeResultCache, new QueryMetrics(new SimpleMeterRegistry()));
+    }
+
+    private ExecutionPlan plan(String childSql, boolean columnar) {
+        QueryNodeTreeDto root = node(QueryNodeType.ROWS, null, "SELECT id, region FROM category WHERE id <> :exclude ORDER BY id");
+        QueryNodeTreeDto child = node(QueryNodeType.ROWS, "products", childSql);
+        child.setColumnar(columnar);
+        child.setParentId(root.getId());
+        root.getChildrenList().add(child);
+        root.setHasChildren(true);
+        ApiInfo apiInfo = new ApiInfo();
+        apiInfo.setId(1L);
+        apiInfo.setApiName("categories");
+        apiInfo.setApiType(ApiType.LIST);
+        return new ExecutionPlanCompiler().compile(apiInfo, root);
+    }
+
+    private List<Map<String, Object>> execute(NodeExecutor nodeExecutor, ExecutionPlan plan, DynamicDataSourceExecutor executor) {
+        Map<String, Object> params = Map.of("exclude", "none");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        jdbcTemplate.queryForList(plan.root().getSql(), params).forEach(row -> rows.add(new LinkedHashMap<>(row)));
+        queries.set(0);
+        nodeExecutor.execute(rows, plan.root(), executor, params, QueryDeadline.NONE);
+        return rows;
+    }
+
+    private DynamicDataSourceExecutor dataSourceExecutor() {
+        DynamicDataSourceExecutor executor = Mockito.mock(DynamicDataSourceExecutor.class);
+        Mockito.when(executor.executeQueryForList(any(), anyString(), anyMap(), anyInt())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return jdbcTemplate.queryForList(invocation.getArgument(1), invocation.<Map<String, Object>>getArgument(2));
+        });
+        Mockito.when(executor.executeQueryForColumnar(any(), anyString(), anyMap(), anyInt())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return jdbcTemplate.query(invocation.<String>getArgument(1), invocation.<Map<String, Object>>getArgument(2),
+                    new ColumnarResultExtractor());
+        });
+        return executor;
+    }
+
+    private QueryNodeTreeDto node(QueryNodeType type, String bindingName, String sql) {
+        QueryNodeTreeDto node = new QueryNodeTreeDto();
+        node.setId(++nodeSeq);
+        node.setNodeName(bindingName == null ? "category" : bindingName);
+        node.setQueryNodeType(type);
+        node.setSqlContent(sql);
+        node.setDataSourceId(1);
+        node.setBindingName(bindingName);
+        node.setRelationType(RelationType.CHILD);
+        node.setChildrenList(new ArrayList<>());
+        node.setHasChildren(false);
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> products(Map<String, Object> category) {
+        return (List<Map<String, Object>>) category.get("products");
+    }
+
+    private List<Object> names(Map<String, Object> category) {
+        return products(category).stream().map(row -> row.get("name")).toList();
+    }
+}
@@ -0,0 +1,70 @@
+package com.xqy.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlUtilsTest {
+
+    @Test
+    void batchKeyColumnsFindsTopLevelEqualities() {
+        Map<String, String> columns = SqlUtils.batchKeyColumns(
+                "SELECT p.id, p.name FROM product p WHERE p.category_id = :id AND p.status = :status ORDER BY p.id");
+        assertEquals(Map.of("id", "p.category_id", "status", "p.status"), columns);
+    }
+
+    @Test
+    void batchKeyColumnsRejectsAggregatesAndSetOperations() {
+        assertTrue(SqlUtils.batchKeyColumns("SELECT COUNT(*) AS total FROM product WHERE category_id = :id").isEmpty());
+        assertTrue(SqlUtils.batchKeyColumns("SELECT category_id, SUM(price) FROM product WHERE category_id = :id GROUP BY category_id").isEmpty());
+        assertTrue(SqlUtils.batchKeyColumns("SELECT DISTINCT name FROM product WHERE category_id = :id").isEmpty());
+        assertTrue(SqlUtils.batchKeyColumns("SELECT id, ROW_NUMBER() OVER (ORDER BY id) rn FROM product WHERE category_id = :id").isEmpty());
+        assertTrue(SqlUtils.batchKeyColumns("SELECT id FROM a WHERE x = :id UNION SELECT id FROM b WHERE y = 1").isEmpty());
+    }
+
+    @Test
+    void batchKeyColumnsRejectsAmbiguousPredicates() {
+        // 顶层 OR、重复出现、表达式与非 WHERE 位置的参数都不能批量
+        assertTrue(SqlUtils.batchKeyColumns("SELECT id FROM product WHERE category_id = :id OR featured = 1").isEmpty());
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT id FROM product WHERE category_id = :id AND parent_id = :id"));
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT id FROM product WHERE price + 1 = :price"));
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT id FROM product WHERE category_id = :id + 1"));
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT p.id FROM product p LEFT JOIN stock s ON s.product_id = :id WHERE p.id > 0"));
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT id FROM product WHERE id IN (SELECT product_id FROM tag WHERE tag_id = :id)"));
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT id FROM product WHERE category_id = :id LIMIT 10"));
+    }
+
+    @Test
+    void batchKeyColumnsRejectsBareStarProjection() {
+        // "SELECT *, 列" 在 Oracle 上无法执行
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT * FROM product WHERE category_id = :id"));
+        assertEquals(Map.of(), SqlUtils.batchKeyColumns("SELECT id, * FROM product WHERE category_id = :id"));
+        assertEquals(Map.of("id", "p.category_id"), SqlUtils.batchKeyColumns("SELECT p.* FROM product p WHERE p.category_id = :id"));
+        assertEquals("SELECT p.* , p.category_id AS qs_batch_key_0 FROM product p WHERE p.category_id IN (:id)",
+                SqlUtils.toBatchSql("SELECT p.* FROM product p WHERE p.category_id = :id", List.of("id")));
+        assertEquals(Map.of("id", "category_id"), SqlUtils.batchKeyColumns("SELECT price * 2 AS doubled FROM product WHERE category_id = :id"));
+    }
+
+    @Test
+    void batchKeyColumnsIgnoresLiteralsAndComments() {
+        Map<String, String> columns = SqlUtils.batchKeyColumns(
+                "SELECT id, 'a = :x or b' AS note FROM product /* WHERE c = :y */ WHERE category_id = :id -- OR d = :z");
+        assertEquals(Map.of("id", "category_id"), columns);
+        assertEquals(List.of("id"), SqlUtils.parseParameterNames(
+                "SELECT ':x' FROM product /* :y */ WHERE category_id = :id -- :z"));
+    }
+
+    @Test
+    void toBatchSqlProjectsFilteredColumns() {
+        String sql = "SELECT id, name FROM product WHERE category_id = :id AND status = :status ORDER BY id";
+        assertEquals("SELECT id, name , category_id AS qs_batch_key_0 FROM product WHERE category_id IN (:id) AND status = :status ORDER BY id",
+                SqlUtils.toBatchSql(sql, List.of("id")));
+        assertEquals("SELECT id, name , status AS qs_batch_key_0, category_id AS qs_batch_key_1 FROM product "
+                        + "WHERE category_id IN (:id) AND status IN (:status) ORDER BY id",
+                SqlUtils.toBatchSql(sql, List.of("status", "id")));
+    }
+}